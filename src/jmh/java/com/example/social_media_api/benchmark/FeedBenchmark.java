@@ -0,0 +1,148 @@
+package com.example.social_media_api.benchmark;
+
+import com.example.social_media_api.SocialMediaApiApplication;
+import com.example.social_media_api.domain.dto.CursorPageDto;
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.service.PostService;
+import com.example.social_media_api.service.RankedFeedService;
+import com.example.social_media_api.service.RankedFeedServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Пропускная способность и задержки сборки ленты на встроенной H2.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FeedBenchmark -p users=1000 -p follows=50"
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedBenchmark {
+    @Param("1000")
+    private int users;
+
+    @Param("20")
+    private int follows;
+
+    @Param("10")
+    private int postsPerUser;
+
+    @Param("2.0")
+    private double skew;
+
+    @Param("20")
+    private int pageSize;
+
+    // Порог подписчиков для чтения постов автора при запросе ленты (hybrid fan-out)
+    @Param("10000")
+    private long followerThreshold;
+
+    @Param("true")
+    private boolean ringsEnabled;
+
+    // 0 - кеш первых страниц ленты выключен
+    @Param("0")
+    private int cachedPages;
+
+    @Param("42")
+    private long seed;
+
+    private ConfigurableApplicationContext context;
+    private PostService postService;
+    private List<Post> posts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SocialMediaApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--secretKey=YmVuY2htYXJrYmVuY2htYXJrYmVuY2htYXJrYmVuY2htYXJrYmVuY2htYXJr",
+                        "--uploadPath=" + System.getProperty("java.io.tmpdir"),
+                        "--logging.level.root=WARN",
+                        "--feed.fanout.followerThreshold=" + followerThreshold,
+                        "--feed.rings.enabled=" + ringsEnabled,
+                        "--feed.cache.pages=" + cachedPages,
+                        "--feed.ranking.interval=" + Long.MAX_VALUE,
+                        // Очистка выбирает посты через FOR UPDATE SKIP LOCKED, которого нет в H2
+                        "--post.purge.interval=" + Long.MAX_VALUE,
+                        "--feed.ranking.batchSize=" + users
+                );
+
+        FeedDataSeeder seeder = new FeedDataSeeder(context.getBean(JdbcTemplate.class), seed);
+        seeder.seedUsers(users);
+        seeder.seedSubscriptions(users, follows, skew);
+        seeder.seedPosts(users, postsPerUser, 365);
+        seeder.seedPullAuthors(followerThreshold);
+
+        context.getBean(TransactionTemplate.class)
+                .executeWithoutResult(status -> context.getBean(FeedEntryRepository.class).backfillPosts(0, Long.MAX_VALUE));
+
+        RankedFeedService rankedFeedService = context.getBean(RankedFeedService.class);
+        for (long userId = 1; userId <= users; userId++) {
+            rankedFeedService.getRankedTimeline(userId, 0, 1);
+        }
+        context.getBean(RankedFeedServiceImpl.class).rankPendingTimelines();
+
+        postService = context.getBean(PostService.class);
+        posts = context.getBean(PostRepository.class).findAll(PageRequest.of(0, pageSize)).getContent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<PostDto> pageFeed() {
+        return postService.getPostsBySubscriber(randomUser(), "DESC", 0, pageSize);
+    }
+
+    @Benchmark
+    public Slice<PostDto> sliceFeed() {
+        return postService.getPostSliceBySubscriber(randomUser(), "DESC", 0, pageSize);
+    }
+
+    @Benchmark
+    public CursorPageDto<PostDto> cursorFeed() {
+        return postService.getPostsBySubscriberAfterCursor(randomUser(), "DESC", null, pageSize);
+    }
+
+    @Benchmark
+    public Page<PostDto> rankedFeed() {
+        return postService.getRankedPostsBySubscriber(randomUser(), 0, pageSize);
+    }
+
+    @Benchmark
+    public List<PostDto> postDtoMapping() {
+        return posts.stream()
+                .map(PostDto::new)
+                .collect(Collectors.toList());
+    }
+
+    private User randomUser() {
+        User user = new User();
+        user.setId(ThreadLocalRandom.current().nextLong(1, users + 1));
+        return user;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.social_media_api.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Заполняет пустую базу пользователями, подписками и постами.
+ * Одинаковые параметры и seed всегда дают одинаковые данные.
+ */
+public class FeedDataSeeder {
+    private static final int BATCH_SIZE = 1000;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    public FeedDataSeeder(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    public void seedUsers(int users) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= users; id++) {
+            rows.add(new Object[] { id, "user" + id + "@benchmark.com", "password", "user" + id });
+        }
+
+        batchInsert("INSERT INTO users (id, email, password, name) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    // Чем больше skew, тем сильнее подписки концентрируются на пользователях с маленьким id
+    public void seedSubscriptions(int users, int follows, double skew) {
+        int degree = Math.min(follows, users - 1);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (long subscriberId = 1; subscriberId <= users; subscriberId++) {
+            Set<Long> channelIds = new HashSet<>();
+            while (channelIds.size() < degree) {
+                long channelId = 1 + (long) (users * Math.pow(random.nextDouble(), skew));
+                if (channelId != subscriberId) {
+                    channelIds.add(channelId);
+                }
+            }
+
+            for (Long channelId : channelIds) {
+                rows.add(new Object[] { channelId, subscriberId, false });
+            }
+        }
+
+        batchInsert("INSERT INTO user_subscriptions (channel_id, subscriber_id, active) VALUES (?, ?, ?)", rows);
+    }
+
+    public void seedPosts(int users, int postsPerUser, int days) {
+        List<Object[]> rows = new ArrayList<>();
+        long postId = 1;
+        for (long authorId = 1; authorId <= users; authorId++) {
+            for (int i = 0; i < postsPerUser; i++) {
+                LocalDateTime createDate = START_DATE.plusSeconds(random.nextInt(days * 24 * 60 * 60));
+                rows.add(new Object[] {
+                        postId, "Post " + postId, "Content of post " + postId, authorId, Timestamp.valueOf(createDate)
+                });
+                postId++;
+            }
+        }
+
+        batchInsert("INSERT INTO posts (id, title, content, user_id, create_date) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    // Авторы с количеством подписчиков больше порога читаются при запросе ленты, как после TimelineService.addPost
+    public void seedPullAuthors(long followerThreshold) {
+        jdbcTemplate.update(
+                "INSERT INTO feed_pull_authors (author_id, create_date) " +
+                        "SELECT us.channel_id, ? FROM user_subscriptions us " +
+                        "GROUP BY us.channel_id HAVING COUNT(*) > ?",
+                Timestamp.valueOf(START_DATE), followerThreshold
+        );
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.utils.FeedCursor;
+
+import java.util.List;
+
+// Кольцевой буфер последних постов автора, упорядоченный от старых к новым
+class AuthorRecentPosts {
+    private final FeedCursor[] entries;
+    private int start;
+    private int size;
+    private boolean complete;
+
+    AuthorRecentPosts(int capacity, List<FeedCursor> newestFirst, boolean complete) {
+        this.entries = new FeedCursor[capacity];
+        this.complete = complete;
+
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            entries[size++] = newestFirst.get(i);
+        }
+    }
+
+    synchronized void add(FeedCursor post) {
+        // Пост мог попасть в буфер при загрузке из базы
+        if (indexOf(post.getPostId()) >= 0) {
+            return;
+        }
+
+        if (size == entries.length) {
+            complete = false;
+
+            if (post.compareTo(get(0)) < 0) {
+                return;
+            }
+
+            start = (start + 1) % entries.length;
+            size--;
+        }
+
+        // Обычно новый пост самый свежий, и сдвигать элементы не нужно
+        int position = size;
+        while (position > 0 && get(position - 1).compareTo(post) > 0) {
+            set(position, get(position - 1));
+            position--;
+        }
+
+        set(position, post);
+        size++;
+    }
+
+    synchronized void remove(Long postId) {
+        int index = indexOf(postId);
+        if (index < 0) {
+            return;
+        }
+
+        for (int j = index; j < size - 1; j++) {
+            set(j, get(j + 1));
+        }
+
+        set(size - 1, null);
+        size--;
+    }
+
+    synchronized FeedCursor[] getOlderThan(FeedCursor cursor) {
+        int count = size;
+        if (cursor != null) {
+            while (count > 0 && get(count - 1).compareTo(cursor) >= 0) {
+                count--;
+            }
+        }
+
+        FeedCursor[] result = new FeedCursor[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = get(count - 1 - i);
+        }
+
+        return result;
+    }
+
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    private int indexOf(Long postId) {
+        for (int i = 0; i < size; i++) {
+            if (get(i).getPostId().equals(postId)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private FeedCursor get(int index) {
+        return entries[(start + index) % entries.length];
+    }
+
+    private void set(int index, FeedCursor post) {
+        entries[(start + index) % entries.length] = post;
+    }
+}
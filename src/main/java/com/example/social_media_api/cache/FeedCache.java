@@ -0,0 +1,122 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+@Component
+public class FeedCache {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final UserSubscriptionRepository userSubscriptionRepository;
+    private final FeedPullAuthorRepository feedPullAuthorRepository;
+    private final int cachedPages;
+    private final Cache<Long, Map<Pageable, Page<PostDto>>> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicInteger loading = new AtomicInteger();
+
+    @Autowired
+    public FeedCache(
+            UserSubscriptionRepository userSubscriptionRepository,
+            FeedPullAuthorRepository feedPullAuthorRepository,
+            @Value("${feed.cache.maxUsers:10000}") long maxUsers,
+            @Value("${feed.cache.pages:3}") int cachedPages,
+            @Value("${feed.cache.ttl:60}") long ttl
+    ) {
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.feedPullAuthorRepository = feedPullAuthorRepository;
+        this.cachedPages = cachedPages;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .build();
+    }
+
+    public Page<PostDto> get(Long userId, Pageable pageable, Supplier<Page<PostDto>> loader) {
+        Map<Pageable, Page<PostDto>> cached = cache.getIfPresent(userId);
+        Page<PostDto> cachedPage = cached == null ? null : cached.get(pageable);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        if (pageable.getPageNumber() >= cachedPages) {
+            return loader.get();
+        }
+
+        int stripe = getStripe(userId);
+        loading.incrementAndGet();
+        try {
+            long version = versions.get(stripe);
+            Page<PostDto> loaded = loader.get();
+
+            Map<Pageable, Page<PostDto>> pages = cache.get(userId, id -> new ConcurrentHashMap<>());
+            if (pages.size() < cachedPages || pages.containsKey(pageable)) {
+                pages.put(pageable, loaded);
+
+                // Если ленту сбросили во время загрузки, прочитанная страница могла устареть и в кеше не остается
+                if (versions.get(stripe) != version) {
+                    pages.remove(pageable, loaded);
+                }
+            }
+
+            return loaded;
+        } finally {
+            loading.decrementAndGet();
+        }
+    }
+
+    // Сбрасываем кеш только после коммита, иначе параллельный запрос может закешировать старые данные
+    public void evict(Long userId) {
+        TransactionUtils.runAfterCommit(() -> invalidate(userId));
+    }
+
+    // Изменение или удаление поста сбрасывает ленты всех подписчиков автора
+    public void evictSubscribersOf(Long channelId) {
+        TransactionUtils.runAfterCommit(() -> invalidateSubscribersOf(channelId));
+    }
+
+    // Подписчиков pull-автора слишком много, чтобы загружать их на каждый новый пост:
+    // новый пост появится в их закешированных страницах не позже чем через ttl
+    public void evictSubscribersOnNewPost(Long channelId) {
+        if (feedPullAuthorRepository.existsById(channelId)) {
+            return;
+        }
+
+        evictSubscribersOf(channelId);
+    }
+
+    private void invalidateSubscribersOf(Long channelId) {
+        // Пустой кеш без загрузок в процессе сбрасывать незачем: следующие загрузки прочитают уже закоммиченные данные
+        if (cache.estimatedSize() == 0 && loading.get() == 0) {
+            return;
+        }
+
+        for (Long subscriberId : userSubscriptionRepository.findSubscriberIdsByChannelId(channelId)) {
+            invalidate(subscriberId);
+        }
+    }
+
+    private void invalidate(Long userId) {
+        versions.incrementAndGet(getStripe(userId));
+        cache.invalidate(userId);
+    }
+
+    private int getStripe(Long userId) {
+        return (int) (userId & (VERSION_STRIPES - 1));
+    }
+}
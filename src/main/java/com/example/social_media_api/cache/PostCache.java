@@ -0,0 +1,93 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.utils.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+@Component
+public class PostCache {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<Long, PostSnapshot> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Autowired
+    public PostCache(
+            @Value("${post.cache.maxSize:100000}") long maxSize,
+            @Value("${post.cache.ttl:600}") long ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .build();
+    }
+
+    public Optional<PostSnapshot> get(Long id, Function<Long, Optional<PostSnapshot>> loader) {
+        PostSnapshot cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        int stripe = getStripe(id);
+        long version = versions.get(stripe);
+        Optional<PostSnapshot> loaded = loader.apply(id);
+
+        // Если пост изменили во время загрузки, прочитанная копия могла устареть и в кеш не попадает
+        loaded.ifPresent(snapshot -> cache.asMap().compute(id, (key, current) ->
+                versions.get(stripe) == version ? snapshot : current));
+
+        return loaded;
+    }
+
+    // Отсутствующие в кеше посты загружаются одним запросом, удаленных постов в результате нет
+    public Map<Long, PostSnapshot> getAll(Collection<Long> ids, Function<Collection<Long>, List<PostSnapshot>> loader) {
+        Map<Long, PostSnapshot> result = new HashMap<>(cache.getAllPresent(ids));
+        if (result.size() == ids.size()) {
+            return result;
+        }
+
+        List<Long> missingIds = new ArrayList<>(ids.size() - result.size());
+        Map<Long, Long> loadVersions = new HashMap<>();
+        for (Long id : ids) {
+            if (!result.containsKey(id)) {
+                missingIds.add(id);
+                loadVersions.put(id, versions.get(getStripe(id)));
+            }
+        }
+
+        for (PostSnapshot snapshot : loader.apply(missingIds)) {
+            Long id = snapshot.getId();
+            long version = loadVersions.get(id);
+
+            cache.asMap().compute(id, (key, current) -> versions.get(getStripe(id)) == version ? snapshot : current);
+            result.put(id, snapshot);
+        }
+
+        return result;
+    }
+
+    // Сбрасываем после коммита, иначе параллельный запрос может прочитать и закешировать старую версию
+    public void evict(Long id) {
+        TransactionUtils.runAfterCommit(() -> cache.asMap().compute(id, (key, current) -> {
+            versions.incrementAndGet(getStripe(id));
+            return null;
+        }));
+    }
+
+    private int getStripe(Long id) {
+        return (int) (id & (VERSION_STRIPES - 1));
+    }
+}
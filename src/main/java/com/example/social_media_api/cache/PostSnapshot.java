@@ -0,0 +1,46 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.dto.PostDto;
+
+import java.time.LocalDateTime;
+
+// Неизменяемая копия поста, PostDto отдается наружу и может быть изменен вызывающим кодом
+public final class PostSnapshot {
+    private final Long id;
+    private final String title;
+    private final String content;
+    private final String imageLink;
+    private final Long authorId;
+    private final String authorName;
+    private final LocalDateTime createDate;
+    private final long views;
+    private final long version;
+
+    public PostSnapshot(PostDto post) {
+        this.id = post.getId();
+        this.title = post.getTitle();
+        this.content = post.getContent();
+        this.imageLink = post.getImageLink();
+        this.authorId = post.getAuthor().getId();
+        this.authorName = post.getAuthor().getName();
+        this.createDate = post.getCreateDate();
+        this.views = post.getViews();
+        this.version = post.getVersion();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getImageLink() {
+        return imageLink;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public PostDto toDto() {
+        return new PostDto(id, title, content, imageLink, authorId, authorName, createDate, views, version);
+    }
+}
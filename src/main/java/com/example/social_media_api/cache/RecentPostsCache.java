@@ -0,0 +1,154 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FeedCursor;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+@Component
+public class RecentPostsCache {
+    private final PostRepository postRepository;
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxLoadsPerRequest;
+    private final Cache<Long, AuthorRecentPosts> authors;
+
+    @Autowired
+    public RecentPostsCache(
+            PostRepository postRepository,
+            @Value("${feed.rings.enabled:true}") boolean enabled,
+            @Value("${feed.rings.capacity:50}") int capacity,
+            @Value("${feed.rings.maxAuthors:100000}") long maxAuthors,
+            @Value("${feed.rings.maxLoadsPerRequest:20}") int maxLoadsPerRequest,
+            @Value("${feed.rings.ttl:60}") long ttl
+    ) {
+        this.postRepository = postRepository;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.maxLoadsPerRequest = maxLoadsPerRequest;
+        // Буфер перечитывается из базы раз в ttl: так в него попадают посты, созданные и удаленные на других узлах
+        this.authors = Caffeine.newBuilder()
+                .maximumSize(maxAuthors)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(Post post) {
+        Long authorId = post.getAuthor().getId();
+        FeedCursor entry = FeedCursor.of(post);
+
+        // compute дожидается загрузки буфера, которая идет параллельно: пост, которого не было
+        // в прочитанных из базы данных, добавится в буфер после загрузки, а не потеряется
+        TransactionUtils.runAfterCommit(() -> authors.asMap().compute(authorId, (id, recentPosts) -> {
+            if (recentPosts != null) {
+                recentPosts.add(entry);
+            }
+            return recentPosts;
+        }));
+    }
+
+    public void remove(Post post) {
+        Long authorId = post.getAuthor().getId();
+        Long postId = post.getId();
+
+        TransactionUtils.runAfterCommit(() -> authors.asMap().compute(authorId, (id, recentPosts) -> {
+            if (recentPosts != null) {
+                recentPosts.remove(postId);
+            }
+            return recentPosts;
+        }));
+    }
+
+    // Возвращает id постов, которые старше курсора, от новых к старым.
+    // Null означает, что буферов недостаточно для точного ответа и ленту нужно читать из базы.
+    public List<Long> getLatestPostIds(Collection<Long> authorIds, FeedCursor cursor, int limit) {
+        if (!enabled) {
+            return null;
+        }
+
+        PriorityQueue<AuthorPosition> heap = new PriorityQueue<>(Math.max(authorIds.size(), 1));
+        int loads = 0;
+
+        for (Long authorId : authorIds) {
+            AuthorRecentPosts recentPosts = authors.getIfPresent(authorId);
+
+            if (recentPosts == null) {
+                if (loads++ >= maxLoadsPerRequest) {
+                    return null;
+                }
+
+                recentPosts = authors.get(authorId, this::load);
+            }
+
+            AuthorPosition position = new AuthorPosition(recentPosts.getOlderThan(cursor), recentPosts.isComplete());
+            if (position.hasNext()) {
+                heap.add(position);
+            } else if (!position.complete) {
+                return null;
+            }
+        }
+
+        List<Long> result = new ArrayList<>(limit);
+        while (result.size() < limit && !heap.isEmpty()) {
+            AuthorPosition position = heap.poll();
+            result.add(position.next().getPostId());
+
+            if (position.hasNext()) {
+                heap.add(position);
+            } else if (!position.complete && result.size() < limit) {
+                // В буфере автора больше нет постов, но в базе могут быть более старые
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    private AuthorRecentPosts load(Long authorId) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createDate").and(Sort.by(Sort.Direction.DESC, "id"));
+        List<FeedCursor> posts = postRepository.findRecentPostsByAuthorId(authorId, PageRequest.of(0, capacity + 1, sort));
+
+        return new AuthorRecentPosts(capacity, posts, posts.size() <= capacity);
+    }
+
+    private static class AuthorPosition implements Comparable<AuthorPosition> {
+        private final FeedCursor[] posts;
+        private final boolean complete;
+        private int index;
+
+        AuthorPosition(FeedCursor[] posts, boolean complete) {
+            this.posts = posts;
+            this.complete = complete;
+        }
+
+        boolean hasNext() {
+            return index < posts.length;
+        }
+
+        FeedCursor next() {
+            return posts[index++];
+        }
+
+        @Override
+        public int compareTo(AuthorPosition other) {
+            return other.posts[other.index].compareTo(posts[index]);
+        }
+    }
+}
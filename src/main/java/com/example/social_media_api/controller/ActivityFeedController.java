@@ -1,9 +1,11 @@
 package com.example.social_media_api.controller;
 
+import com.example.social_media_api.domain.dto.CursorPageDto;
 import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.entity.User;
 import com.example.social_media_api.response.ResponseMessage;
 import com.example.social_media_api.security.UserDetailsImpl;
+import com.example.social_media_api.service.FeedStreamService;
 import com.example.social_media_api.service.PostService;
 import com.example.social_media_api.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,13 +18,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Activity feed", description = "API for getting a list of posts from users to which the authenticated user is subscribed")
 @RestController
@@ -30,10 +35,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class ActivityFeedController {
     private final PostService postService;
     private final UserService userService;
+    private final FeedStreamService feedStreamService;
 
-    public ActivityFeedController(PostService postService, UserService userService) {
+    public ActivityFeedController(PostService postService, UserService userService,
+                                  FeedStreamService feedStreamService) {
         this.postService = postService;
         this.userService = userService;
+        this.feedStreamService = feedStreamService;
     }
 
     @Operation(summary = "Get activity feed", description = "Get all user posts that a authenticated user is following")
@@ -67,4 +75,150 @@ public class ActivityFeedController {
         Page<PostDto> posts = postService.getPostsBySubscriber(user, sortType, page, pageSize);
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
+
+    @Operation(summary = "Get ranked activity feed", description = "Get posts that a authenticated user is following, posts of friends and users with recent conversations go first. The ranking is refreshed in the background, until it is ready the newest posts go first.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Activity feed received successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Page number must be non-negative\" }") })
+            )
+    })
+    @GetMapping("/ranked")
+    public ResponseEntity<?> getRankedActivityFeed(
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser,
+
+            @Parameter(description = "Current page. The minimum value is 0.")
+            @RequestParam("page") int page,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
+    ) {
+        User user = userService.getUserFromUserDetails(authenticatedUser);
+
+        Page<PostDto> posts = postService.getRankedPostsBySubscriber(user, page, pageSize);
+        return new ResponseEntity<>(posts, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get activity feed without total count", description = "Get user posts that a authenticated user is following. The response only tells whether the next page exists.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Activity feed received successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Page number must be non-negative\" }") })
+            )
+    })
+    @GetMapping("/slice")
+    public ResponseEntity<?> getActivityFeedSlice(
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser,
+
+            @Parameter(description = "Type of sorting posts by date. Valid values: DESC or ASC.")
+            @RequestParam("sortType") String sortType,
+
+            @Parameter(description = "Current page. The minimum value is 0.")
+            @RequestParam("page") int page,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
+    ) {
+        User user = userService.getUserFromUserDetails(authenticatedUser);
+
+        Slice<PostDto> posts = postService.getPostSliceBySubscriber(user, sortType, page, pageSize);
+        return new ResponseEntity<>(posts, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get activity feed by cursor", description = "Get posts that a authenticated user is following, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Activity feed received successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPageDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Invalid cursor value\" }") })
+            )
+    })
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getActivityFeedByCursor(
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser,
+
+            @Parameter(description = "Type of sorting posts by date. Valid values: DESC or ASC.")
+            @RequestParam("sortType") String sortType,
+
+            @Parameter(description = "Cursor returned with the previous page. Omit to get the first page.")
+            @RequestParam(name = "cursor", required = false) String cursor,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
+    ) {
+        User user = userService.getUserFromUserDetails(authenticatedUser);
+
+        CursorPageDto<PostDto> posts = postService.getPostsBySubscriberAfterCursor(user, sortType, cursor, pageSize);
+        return new ResponseEntity<>(posts, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get new activity feed posts", description = "Get posts that a authenticated user is following, created after the newest post the client already has. Posts are sorted from oldest to newest, the next part can be requested from the cursor endpoint with ASC sorting.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "New posts received successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPageDto.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "No new posts", content = @Content),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Invalid since value\" }") })
+            )
+    })
+    @GetMapping("/since")
+    public ResponseEntity<?> getActivityFeedSince(
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser,
+
+            @Parameter(description = "Id with the id: prefix (id:42) or creation date (yyyy-MM-dd HH:mm:ss or yyyy-MM-ddTHH:mm:ss) of the newest post the client already has.")
+            @RequestParam("since") String since,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
+    ) {
+        User user = userService.getUserFromUserDetails(authenticatedUser);
+
+        CursorPageDto<PostDto> posts = postService.getPostsBySubscriberSince(user, since, pageSize);
+        if (posts.getContent().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+
+        return new ResponseEntity<>(posts, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Stream activity feed", description = "Receive new posts of users that a authenticated user is following as Server-Sent Events")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Stream opened successfully. Each \"post\" event contains a post.",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                    schema = @Schema(implementation = PostDto.class))
+            )
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamActivityFeed(
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser
+    ) {
+        User user = userService.getUserFromUserDetails(authenticatedUser);
+
+        SseEmitter emitter = feedStreamService.subscribe(user);
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
 }
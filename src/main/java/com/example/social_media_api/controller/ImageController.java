@@ -0,0 +1,176 @@
+package com.example.social_media_api.controller;
+
+import com.example.social_media_api.service.ImageVariantService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+@Tag(name = "Images", description = "API for getting uploaded post images")
+@RestController
+@RequestMapping("/img")
+public class ImageController {
+    // Атрибуты Tomcat: файл отправляется через sendfile после выхода из контроллера, без копирования в память приложения
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Имена загруженных файлов не меняются, содержимое по имени тоже
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    // Вместо копии отдан оригинал: копия появится позже по тому же адресу
+    private static final String REVALIDATE = "no-cache";
+
+    private final ImageVariantService imageVariantService;
+
+    @Autowired
+    public ImageController(ImageVariantService imageVariantService) {
+        this.imageVariantService = imageVariantService;
+    }
+
+    @Operation(summary = "Get image", description = "Get an uploaded image or its resized copy. Supports a single byte range.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Image received successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the image received successfully"),
+            @ApiResponse(responseCode = "304", description = "Image was not modified", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Image not found", content = @Content),
+            @ApiResponse(responseCode = "416", description = "Requested range is outside the image", content = @Content)
+    })
+    @GetMapping("/{fileName}")
+    public void getImage(
+            @Parameter(description = "Image file name, as in imageLink or imageVariants of a post")
+            @PathVariable("fileName") String fileName,
+
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        Path path = imageVariantService.findImage(fileName);
+        BasicFileAttributes attributes = path == null ? null : readAttributes(path);
+
+        if (attributes == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attributes.size();
+        // В заголовках время передается с точностью до секунды
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, path.getFileName().toString().equals(fileName) ? IMMUTABLE : REVALIDATE);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (lastModified <= getDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+
+        // Содержимое файла по имени не меняется, поэтому If-Range не проверяется
+        HttpRange range = getRange(request.getHeader(HttpHeaders.RANGE));
+        if (range != null) {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+
+            if (start > end) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(end - start + 1);
+
+        if (!HttpMethod.HEAD.matches(request.getMethod())) {
+            writeFile(path, start, end + 1, request, response);
+        }
+    }
+
+    private void writeFile(Path path, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        // Без sendfile данные передаются каналами через буфер JDK, не через массивы в куче
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+
+            long position = start;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Файл удалили вместе с постом
+            return null;
+        }
+    }
+
+    // Некорректный заголовок игнорируется, как будто его нет
+    private long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // Поддерживается один диапазон, при нескольких или некорректном заголовке отдается весь файл
+    private HttpRange getRange(String header) {
+        if (header == null) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
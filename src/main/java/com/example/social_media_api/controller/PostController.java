@@ -1,9 +1,7 @@
 package com.example.social_media_api.controller;
 
 import com.example.social_media_api.domain.dto.PostDto;
-import com.example.social_media_api.domain.entity.Role;
 import com.example.social_media_api.domain.entity.User;
-import com.example.social_media_api.exception.AccessDeniedException;
 import com.example.social_media_api.response.ResponseMessage;
 import com.example.social_media_api.security.UserDetailsImpl;
 import com.example.social_media_api.service.PostService;
@@ -18,12 +16,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -55,12 +56,27 @@ public class PostController {
         return new ResponseEntity<>(posts, HttpStatus.OK);
     }
 
+    @Operation(summary = "Stream all posts", description = "Retrieve all posts as newline-delimited JSON, one post per line")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Posts are being streamed",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = PostDto.class))
+            )
+    })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPosts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(postService::writeAllPosts);
+    }
+
     @Operation(summary = "Get post by ID", description = "Retrieve a post by its ID")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200", description = "Post received successfully",
                     content = @Content(schema = @Schema(implementation = PostDto.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Post was not modified", content = @Content),
             @ApiResponse(
                     responseCode = "400", description = "Invalid post ID",
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
@@ -70,9 +86,48 @@ public class PostController {
     @GetMapping("/{id}")
     public ResponseEntity<?> findPostById(
             @Parameter(description = "post ID")
-            @PathVariable("id") Long id
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "ETag of the post version the client already has")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (ifNoneMatch != null) {
+            String eTag = postService.getPostETag(id);
+
+            if (matchesETag(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
+        PostDto post = postService.findPostById(id);
+        return ResponseEntity.ok().eTag(post.getETag()).body(post);
+    }
+
+    @Operation(summary = "Search posts", description = "Search posts by words from the title and content. The most relevant posts go first.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Posts found successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Query cannot be empty\" }") })
+            )
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPosts(
+            @Parameter(description = "Words to search for")
+            @RequestParam("query") String query,
+
+            @Parameter(description = "Current page. The minimum value is 0.")
+            @RequestParam("page") int page,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
     ) {
-        return new ResponseEntity<>(postService.findPostById(id), HttpStatus.OK);
+        Page<PostDto> posts = postService.searchPosts(query, page, pageSize);
+        return new ResponseEntity<>(posts, HttpStatus.OK);
     }
 
     @Operation(summary = "Create a new post", description = "Create a new post with the provided details")
@@ -86,6 +141,11 @@ public class PostController {
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
                     examples = { @ExampleObject(value = "{ \"message\": \"Title can not be empty\" }") })
             ),
+            @ApiResponse(
+                    responseCode = "413", description = "Image is larger than the allowed size",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Image is too large. The maximum size is 10 MB\" }") })
+            ),
             @ApiResponse(
                     responseCode = "500", description = "Internal server error. Image processing error.",
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
@@ -112,6 +172,31 @@ public class PostController {
         return new ResponseEntity<>(createdPost, HttpStatus.OK);
     }
 
+    @Operation(summary = "Create posts in batch", description = "Create up to 1000 posts without images in one request")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Posts created successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Invalid posts",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Title can not be empty\" }") })
+            )
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createPosts(
+            @RequestBody List<PostDto> posts,
+
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetailsImpl authenticatedUser
+    ) {
+        User author = userService.getUserFromUserDetails(authenticatedUser);
+
+        List<PostDto> createdPosts = postService.createPosts(posts, author);
+        return new ResponseEntity<>(createdPosts, HttpStatus.OK);
+    }
+
     @Operation(summary = "Update a post", description = "Update an existing post with the provided details")
     @ApiResponses(value = {
             @ApiResponse(
@@ -128,6 +213,11 @@ public class PostController {
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
                     examples = { @ExampleObject(value = "{ \"message\": \"Access denied. Only the author can modify or delete the post\" }") })
             ),
+            @ApiResponse(
+                    responseCode = "413", description = "Image is larger than the allowed size",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"Image is too large. The maximum size is 10 MB\" }") })
+            ),
             @ApiResponse(
                     responseCode = "500", description = "Internal server error. Image processing error.",
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
@@ -151,12 +241,8 @@ public class PostController {
             @Parameter(hidden = true)
             @AuthenticationPrincipal UserDetailsImpl authenticatedUser
     ) {
-        User author = userService.getUserFromUserDetails(authenticatedUser);
-        User actualAuthor = postService.getAuthorFromPostByPostId(id);
-
-        checkAccess(actualAuthor, author);
-
-        PostDto updatedPost = postService.updatePost(id, post, image);
+        PostDto updatedPost = postService.updatePost(
+                id, post, image, authenticatedUser.getId(), authenticatedUser.isAdmin());
         return new ResponseEntity<>(updatedPost, HttpStatus.OK);
     }
 
@@ -176,11 +262,6 @@ public class PostController {
                     responseCode = "403", description = "Access denied. Only the author or admin can modify or delete the post",
                     content = @Content(schema = @Schema(implementation = ResponseMessage.class),
                     examples = { @ExampleObject(value = "{ \"message\": \"Access denied. Only the author can modify or delete the post\" }") })
-            ),
-            @ApiResponse(
-                    responseCode = "500", description = "Internal server error. Image processing error.",
-                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
-                    examples = { @ExampleObject(value = "{ \"message\": \"An error occurred while deleting file\" }") })
             )
     })
     @DeleteMapping("/{id}")
@@ -191,18 +272,22 @@ public class PostController {
             @Parameter(hidden = true)
             @AuthenticationPrincipal UserDetailsImpl authenticatedUser
     ) {
-        User author = userService.getUserFromUserDetails(authenticatedUser);
-        User actualAuthor = postService.getAuthorFromPostByPostId(id);
-
-        checkAccess(actualAuthor, author);
-
-        postService.deletePost(id);
+        postService.deletePost(id, authenticatedUser.getId(), authenticatedUser.isAdmin());
         return ResponseEntity.ok("Post deleted successfully");
     }
 
-    private void checkAccess(User actualAuthor, User author) throws AccessDeniedException {
-        if (!author.equals(actualAuthor) && !author.getRoles().contains(Role.ADMIN)) {
-            throw new AccessDeniedException("Access denied. Only the author can modify or delete the post");
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String value : ifNoneMatch.split(",")) {
+            String candidate = value.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
         }
+
+        return false;
     }
 }
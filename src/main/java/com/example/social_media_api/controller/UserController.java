@@ -0,0 +1,69 @@
+package com.example.social_media_api.controller;
+
+import com.example.social_media_api.domain.dto.CursorPageDto;
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.response.ResponseMessage;
+import com.example.social_media_api.service.PostService;
+import com.example.social_media_api.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Users", description = "API for getting posts of a specific user")
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+    private final PostService postService;
+    private final UserService userService;
+
+    @Autowired
+    public UserController(PostService postService, UserService userService) {
+        this.postService = postService;
+        this.userService = userService;
+    }
+
+    @Operation(summary = "Get user posts", description = "Get posts of the user with the given id, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "User posts received successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPageDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "User not found or invalid request params",
+                    content = @Content(schema = @Schema(implementation = ResponseMessage.class),
+                    examples = { @ExampleObject(value = "{ \"message\": \"User not found\" }") })
+            )
+    })
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<?> getUserPosts(
+            @Parameter(description = "User id")
+            @PathVariable("id") Long id,
+
+            @Parameter(description = "Type of sorting posts by date. Valid values: DESC or ASC.")
+            @RequestParam(name = "sortType", defaultValue = "DESC") String sortType,
+
+            @Parameter(description = "Cursor returned with the previous page. Omit to get the first page.")
+            @RequestParam(name = "cursor", required = false) String cursor,
+
+            @Parameter(description = "Current page count. The minimum value is 1.")
+            @RequestParam("pageSize") int pageSize
+    ) {
+        userService.checkUserExists(id);
+
+        CursorPageDto<PostDto> posts = postService.getPostsByAuthor(id, sortType, cursor, pageSize);
+        return new ResponseEntity<>(posts, HttpStatus.OK);
+    }
+}
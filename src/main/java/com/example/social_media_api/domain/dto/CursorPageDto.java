@@ -0,0 +1,59 @@
+package com.example.social_media_api.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "DTO for representing a page of items fetched by cursor")
+public class CursorPageDto<T> {
+
+    @Schema(description = "Items of the current page")
+    @JsonProperty("content")
+    private List<T> content = new ArrayList<>();
+
+    @Schema(description = "Opaque cursor of the next page. Null if there are no more items.")
+    @JsonProperty("nextCursor")
+    private String nextCursor;
+
+    public CursorPageDto() {
+    }
+
+    public CursorPageDto(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CursorPageDto<?> that)) return false;
+
+        if (getContent() != null ? !getContent().equals(that.getContent()) : that.getContent() != null) return false;
+        return getNextCursor() != null ? getNextCursor().equals(that.getNextCursor()) : that.getNextCursor() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getContent() != null ? getContent().hashCode() : 0;
+        result = 31 * result + (getNextCursor() != null ? getNextCursor().hashCode() : 0);
+        return result;
+    }
+}
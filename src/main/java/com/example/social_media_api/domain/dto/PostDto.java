@@ -1,11 +1,15 @@
 package com.example.social_media_api.domain.dto;
 
 import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.utils.ImageVariant;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Schema(description = "DTO for representing a post")
 public class PostDto {
@@ -35,9 +39,29 @@ public class PostDto {
     @JsonProperty("create_date")
     private LocalDateTime createDate;
 
+    @Schema(description = "Number of post views. Recent views are counted with a delay.")
+    @JsonProperty("views")
+    private long views;
+
+    @JsonIgnore
+    private long version;
+
     public PostDto() {
     }
 
+    // Используется в JPQL проекциях, чтобы не загружать сущности Post и User
+    public PostDto(Long id, String title, String content, String imageLink,
+                   Long authorId, String authorName, LocalDateTime createDate, long views, long version) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.imageLink = imageLink;
+        this.author = new UserDto(authorId, authorName);
+        this.createDate = createDate;
+        this.views = views;
+        this.version = version;
+    }
+
     public PostDto(Post post) {
         this.id = post.getId();
         this.title = post.getTitle();
@@ -45,6 +69,8 @@ public class PostDto {
         this.imageLink = post.getImageLink();
         this.author = new UserDto(post.getAuthor());
         this.createDate = post.getCreateDate();
+        this.views = post.getViews();
+        this.version = post.getVersion();
     }
 
     public Long getId() {
@@ -79,6 +105,22 @@ public class PostDto {
         this.imageLink = imageLink;
     }
 
+    // Копии создаются в фоне после загрузки, пока их нет, по этим адресам отдается оригинал
+    @Schema(description = "Addresses of resized copies of the image: thumbnail, feed and full", accessMode = Schema.AccessMode.READ_ONLY)
+    @JsonProperty(value = "imageVariants", access = JsonProperty.Access.READ_ONLY)
+    public Map<String, String> getImageVariants() {
+        if (imageLink == null) {
+            return null;
+        }
+
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (ImageVariant variant : ImageVariant.values()) {
+            variants.put(variant.getName(), variant.getFileName(imageLink));
+        }
+
+        return variants;
+    }
+
     public UserDto getAuthor() {
         return author;
     }
@@ -95,6 +137,28 @@ public class PostDto {
         this.createDate = createDate;
     }
 
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    // Просмотры не входят в ETag, иначе он менялся бы при каждом чтении
+    @JsonIgnore
+    public String getETag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
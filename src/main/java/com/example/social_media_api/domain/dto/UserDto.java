@@ -20,6 +20,11 @@ public class UserDto implements Serializable {
     public UserDto() {
     }
 
+    public UserDto(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
     public UserDto(User user) {
         this.id = user.getId();
         this.name = user.getName();
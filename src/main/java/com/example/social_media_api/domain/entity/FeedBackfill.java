@@ -0,0 +1,46 @@
+package com.example.social_media_api.domain.entity;
+
+import javax.persistence.*;
+
+// Место, до которого заполнена таблица ленты: заполнение идет пачками и продолжается после перезапуска
+@Entity
+@Table(name = "feed_backfills")
+public class FeedBackfill {
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "last_post_id", nullable = false)
+    private long lastPostId;
+
+    public FeedBackfill() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastPostId() {
+        return lastPostId;
+    }
+
+    public void setLastPostId(long lastPostId) {
+        this.lastPostId = lastPostId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedBackfill that)) return false;
+
+        return getName() != null ? getName().equals(that.getName()) : that.getName() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getName() != null ? getName().hashCode() : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.social_media_api.domain.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "feed_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_feed_entries_subscriber_post", columnNames = {"subscriber_id", "post_id"}),
+        indexes = {
+                @Index(name = "idx_feed_entries_subscriber_date", columnList = "subscriber_id, create_date, post_id"),
+                @Index(name = "idx_feed_entries_post", columnList = "post_id")
+        }
+)
+public class FeedEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subscriber_id", nullable = false)
+    private Long subscriberId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @Column(name = "create_date", nullable = false)
+    private LocalDateTime createDate;
+
+    public FeedEntry() {}
+
+    public FeedEntry(Long subscriberId, Post post) {
+        this.subscriberId = subscriberId;
+        this.post = post;
+        this.createDate = post.getCreateDate();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSubscriberId() {
+        return subscriberId;
+    }
+
+    public void setSubscriberId(Long subscriberId) {
+        this.subscriberId = subscriberId;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public void setPost(Post post) {
+        this.post = post;
+    }
+
+    public LocalDateTime getCreateDate() {
+        return createDate;
+    }
+
+    public void setCreateDate(LocalDateTime createDate) {
+        this.createDate = createDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedEntry that)) return false;
+
+        return getId() != null ? getId().equals(that.getId()) : that.getId() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getId() != null ? getId().hashCode() : 0;
+    }
+}
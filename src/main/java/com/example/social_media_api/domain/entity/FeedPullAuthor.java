@@ -0,0 +1,63 @@
+package com.example.social_media_api.domain.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "feed_pull_authors")
+public class FeedPullAuthor {
+    @Id
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Column(name = "create_date", nullable = false)
+    private LocalDateTime createDate;
+
+    // Записи автора в feed_entries удаляются фоновой задачей, флаг ставится после удаления последней
+    @Column(name = "converted", nullable = false)
+    private boolean converted;
+
+    public FeedPullAuthor() {}
+
+    public FeedPullAuthor(Long authorId, LocalDateTime createDate) {
+        this.authorId = authorId;
+        this.createDate = createDate;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public LocalDateTime getCreateDate() {
+        return createDate;
+    }
+
+    public void setCreateDate(LocalDateTime createDate) {
+        this.createDate = createDate;
+    }
+
+    public boolean isConverted() {
+        return converted;
+    }
+
+    public void setConverted(boolean converted) {
+        this.converted = converted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedPullAuthor that)) return false;
+
+        return getAuthorId() != null ? getAuthorId().equals(that.getAuthorId()) : that.getAuthorId() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getAuthorId() != null ? getAuthorId().hashCode() : 0;
+    }
+}
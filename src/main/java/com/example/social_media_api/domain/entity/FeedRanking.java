@@ -0,0 +1,91 @@
+package com.example.social_media_api.domain.entity;
+
+import javax.persistence.*;
+
+@Entity
+@Table(
+        name = "feed_rankings",
+        indexes = {
+                @Index(name = "idx_feed_rankings_subscriber_score", columnList = "subscriber_id, score, post_id"),
+                @Index(name = "idx_feed_rankings_post", columnList = "post_id")
+        }
+)
+public class FeedRanking {
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    // Ранжированная лента пересчитывается целиком, id выделяются блоком на всю ленту, и строки вставляются JDBC батчами
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "feed_ranking_id_generator")
+    @TableGenerator(
+            name = "feed_ranking_id_generator",
+            table = "id_generators",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "feed_rankings",
+            allocationSize = ID_ALLOCATION_SIZE
+    )
+    private Long id;
+
+    @Column(name = "subscriber_id", nullable = false)
+    private Long subscriberId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @Column(name = "score", nullable = false)
+    private double score;
+
+    public FeedRanking() {}
+
+    public FeedRanking(Long subscriberId, Post post, double score) {
+        this.subscriberId = subscriberId;
+        this.post = post;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSubscriberId() {
+        return subscriberId;
+    }
+
+    public void setSubscriberId(Long subscriberId) {
+        this.subscriberId = subscriberId;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public void setPost(Post post) {
+        this.post = post;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedRanking that)) return false;
+
+        return getId() != null ? getId().equals(that.getId()) : that.getId() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getId() != null ? getId().hashCode() : 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.social_media_api.domain.entity;
+
+import javax.persistence.*;
+
+// Файл картинки хранится один раз на содержимое, refCount - сколько постов на него ссылается
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    public ImageBlob() {}
+
+    public ImageBlob(String name, long refCount) {
+        this.name = name;
+        this.refCount = refCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ImageBlob that)) return false;
+
+        return getName() != null ? getName().equals(that.getName()) : that.getName() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return getName() != null ? getName().hashCode() : 0;
+    }
+}
@@ -1,13 +1,35 @@
 package com.example.social_media_api.domain.entity;
 
+import org.hibernate.annotations.Where;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "posts")
+// Посты автора читаются диапазоном по индексу, без сортировки всех его постов
+@Table(
+        name = "posts",
+        indexes = {
+                @Index(name = "idx_posts_user_date", columnList = "user_id, create_date, id"),
+                @Index(name = "idx_posts_deleted", columnList = "deleted, id")
+        }
+)
+// Удаленные посты остаются в таблице до очистки в PostPurgeService и не видны ни в одном запросе
+@Where(clause = "deleted = false")
 public class Post {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // id выделяются блоками из таблицы, в отличие от IDENTITY это позволяет Hibernate вставлять посты JDBC батчами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "post_id_generator")
+    @TableGenerator(
+            name = "post_id_generator",
+            table = "id_generators",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "posts",
+            allocationSize = ID_ALLOCATION_SIZE
+    )
     private Long id;
 
     @Column(name="title", nullable = false)
@@ -26,6 +48,18 @@ public class Post {
     @Column(name="create_date", nullable = false)
     private LocalDateTime createDate;
 
+    // Увеличивается Hibernate при каждом изменении поста, из него строится ETag
+    @Version
+    @Column(name="version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // Обновляется пачками из PostViewService, а не при каждом просмотре
+    @Column(name="views", nullable = false, columnDefinition = "bigint default 0")
+    private long views;
+
+    @Column(name="deleted", nullable = false, columnDefinition = "boolean default false")
+    private boolean deleted;
+
     public Post() {}
 
     public Post(String title, String content, String imageLink, User author, LocalDateTime createDate) {
@@ -84,6 +118,30 @@ public class Post {
         this.createDate = createData;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -4,9 +4,11 @@ import com.example.social_media_api.exception.*;
 import com.example.social_media_api.response.ResponseMessage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -49,6 +51,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ResponseMessage(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
+        String message = e.getMaxUploadSize() < 0
+                ? "Image is too large"
+                : "Image is too large. The maximum size is " + DataSize.ofBytes(e.getMaxUploadSize()).toMegabytes() + " MB";
+
+        return new ResponseEntity<>(new ResponseMessage(message), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<List<ResponseMessage>> handleValidationException(MethodArgumentNotValidException ex) {
         List<ResponseMessage> errors = ex.getBindingResult().getFieldErrors().stream()
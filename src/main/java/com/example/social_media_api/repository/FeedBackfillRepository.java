@@ -0,0 +1,24 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.entity.FeedBackfill;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface FeedBackfillRepository extends JpaRepository<FeedBackfill, String> {
+    // Узлы, запущенные одновременно, создают одну строку и дальше делят между собой пачки
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO feed_backfills (name, last_post_id) VALUES (:name, 0)", nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM FeedBackfill b WHERE b.name = :name")
+    Optional<FeedBackfill> findByNameForUpdate(@Param("name") String name);
+}
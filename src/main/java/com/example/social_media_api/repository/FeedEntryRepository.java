@@ -0,0 +1,98 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.FeedEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static com.example.social_media_api.repository.PostRepository.POST_DTO;
+
+@Repository
+public interface FeedEntryRepository extends JpaRepository<FeedEntry, Long> {
+    @Query(
+            value = "SELECT " + POST_DTO + " FROM FeedEntry f JOIN f.post p JOIN p.author a WHERE f.subscriberId = :userId AND p.deleted = false",
+            countQuery = "SELECT COUNT(f) FROM FeedEntry f JOIN f.post p WHERE f.subscriberId = :userId AND p.deleted = false"
+    )
+    Page<PostDto> findPostsBySubscriber(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT COUNT(f) FROM FeedEntry f JOIN f.post p WHERE f.subscriberId = :subscriberId AND p.deleted = false " +
+            "AND p.author.id NOT IN :authorIds")
+    long countBySubscriberIdExcludingAuthors(@Param("subscriberId") Long subscriberId,
+                                             @Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT " + POST_DTO + " FROM FeedEntry f JOIN f.post p JOIN p.author a WHERE f.subscriberId = :userId AND p.deleted = false")
+    Slice<PostDto> findPostSliceBySubscriber(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM FeedEntry f JOIN f.post p JOIN p.author a WHERE f.subscriberId = :userId AND p.deleted = false")
+    List<PostDto> findTimelineHead(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM FeedEntry f JOIN f.post p JOIN p.author a WHERE f.subscriberId = :userId AND p.deleted = false " +
+            "AND (f.createDate < :createDate OR (f.createDate = :createDate AND f.post.id < :postId)) " +
+            "ORDER BY f.createDate DESC, f.post.id DESC")
+    List<PostDto> findTimelineBefore(@Param("userId") Long userId, @Param("createDate") LocalDateTime createDate,
+                                     @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM FeedEntry f JOIN f.post p JOIN p.author a WHERE f.subscriberId = :userId AND p.deleted = false " +
+            "AND (f.createDate > :createDate OR (f.createDate = :createDate AND f.post.id > :postId)) " +
+            "ORDER BY f.createDate ASC, f.post.id ASC")
+    List<PostDto> findTimelineAfter(@Param("userId") Long userId, @Param("createDate") LocalDateTime createDate,
+                                    @Param("postId") Long postId, Pageable pageable);
+
+    // Записи уже разложенных постов пропускаются: раскладка поста, подписка и заполнение ленты могут идти одновременно
+    @Modifying
+    @Query(
+            value = "INSERT IGNORE INTO feed_entries (subscriber_id, post_id, create_date) " +
+                    "SELECT us.subscriber_id, :postId, :createDate FROM user_subscriptions us WHERE us.channel_id = :authorId",
+            nativeQuery = true
+    )
+    int fanOutPost(@Param("postId") Long postId, @Param("authorId") Long authorId,
+                   @Param("createDate") LocalDateTime createDate);
+
+    // Новому подписчику раскладываются только последние limit постов канала, более старые в его ленте не появятся
+    @Modifying
+    @Query(
+            value = "INSERT IGNORE INTO feed_entries (subscriber_id, post_id, create_date) " +
+                    "SELECT :subscriberId, p.id, p.create_date FROM posts p WHERE p.user_id = :channelId AND p.deleted = false " +
+                    "ORDER BY p.create_date DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true
+    )
+    int backfillChannel(@Param("subscriberId") Long subscriberId, @Param("channelId") Long channelId,
+                        @Param("limit") int limit);
+
+    @Modifying
+    @Query(
+            value = "INSERT IGNORE INTO feed_entries (subscriber_id, post_id, create_date) " +
+                    "SELECT us.subscriber_id, p.id, p.create_date FROM posts p " +
+                    "JOIN user_subscriptions us ON us.channel_id = p.user_id " +
+                    "WHERE p.id > :afterPostId AND p.id <= :lastPostId AND p.deleted = false " +
+                    "AND p.user_id NOT IN (SELECT pa.author_id FROM feed_pull_authors pa)",
+            nativeQuery = true
+    )
+    int backfillPosts(@Param("afterPostId") long afterPostId, @Param("lastPostId") long lastPostId);
+
+    @Modifying
+    @Query("DELETE FROM FeedEntry f WHERE f.post.id IN :postIds")
+    int deleteByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("DELETE FROM FeedEntry f WHERE f.subscriberId = :subscriberId " +
+            "AND f.post.id IN (SELECT p.id FROM Post p WHERE p.author.id = :channelId)")
+    int deleteBySubscriberAndChannel(@Param("subscriberId") Long subscriberId, @Param("channelId") Long channelId);
+
+    @Modifying
+    @Query(
+            value = "DELETE FROM feed_entries WHERE post_id IN (SELECT p.id FROM posts p WHERE p.user_id = :authorId) LIMIT :limit",
+            nativeQuery = true
+    )
+    int deleteByAuthorId(@Param("authorId") Long authorId, @Param("limit") int limit);
+}
@@ -0,0 +1,34 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.entity.FeedPullAuthor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FeedPullAuthorRepository extends JpaRepository<FeedPullAuthor, Long> {
+    @Query("SELECT pa.authorId FROM FeedPullAuthor pa WHERE pa.authorId IN " +
+            "(SELECT us.channel.id FROM UserSubscription us WHERE us.subscriber.id = :userId)")
+    List<Long> findFollowedPullAuthorIds(@Param("userId") Long userId);
+
+    @Query("SELECT pa.authorId FROM FeedPullAuthor pa WHERE pa.converted = false ORDER BY pa.createDate")
+    List<Long> findUnconvertedAuthorIds(Pageable pageable);
+
+    // Одновременные посты автора, перешедшего порог, отмечают его одной строкой без ошибки повторного ключа
+    @Modifying
+    @Query(
+            value = "INSERT IGNORE INTO feed_pull_authors (author_id, create_date, converted) VALUES (:authorId, :createDate, false)",
+            nativeQuery = true
+    )
+    int markPullAuthor(@Param("authorId") Long authorId, @Param("createDate") LocalDateTime createDate);
+
+    @Modifying
+    @Query("UPDATE FeedPullAuthor pa SET pa.converted = true WHERE pa.authorId = :authorId")
+    int markConverted(@Param("authorId") Long authorId);
+}
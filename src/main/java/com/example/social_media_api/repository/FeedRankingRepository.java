@@ -0,0 +1,55 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.FeedRanking;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+import static com.example.social_media_api.repository.PostRepository.POST_DTO;
+
+@Repository
+public interface FeedRankingRepository extends JpaRepository<FeedRanking, Long> {
+    @Query(
+            value = "SELECT " + POST_DTO + " FROM FeedRanking r JOIN r.post p JOIN p.author a " +
+                    "WHERE r.subscriberId = :userId AND p.deleted = false ORDER BY r.score DESC, r.post.id DESC",
+            countQuery = "SELECT COUNT(r) FROM FeedRanking r JOIN r.post p WHERE r.subscriberId = :userId AND p.deleted = false"
+    )
+    Page<PostDto> findPostsBySubscriber(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM FeedRanking r WHERE r.subscriberId = :subscriberId")
+    int deleteBySubscriberId(@Param("subscriberId") Long subscriberId);
+
+    @Modifying
+    @Query("DELETE FROM FeedRanking r WHERE r.post.id IN :postIds")
+    int deleteByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    @Transactional
+    @Modifying
+    @Query(
+            value = "INSERT INTO id_generators (sequence_name, next_val) " +
+                    "SELECT 'feed_rankings', (SELECT COALESCE(MAX(r.id), 0) FROM feed_rankings r) + :allocationSize FROM DUAL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM id_generators g WHERE g.sequence_name = 'feed_rankings')",
+            nativeQuery = true
+    )
+    int createIdGenerator(@Param("allocationSize") int allocationSize);
+
+    // Строки, вставленные до перехода на генератор, получили id из AUTO_INCREMENT, диапазон должен начинаться после них
+    @Transactional
+    @Modifying
+    @Query(
+            value = "UPDATE id_generators " +
+                    "SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(r.id), 0) + :allocationSize FROM feed_rankings r)) " +
+                    "WHERE sequence_name = 'feed_rankings'",
+            nativeQuery = true
+    )
+    int alignIdGenerator(@Param("allocationSize") int allocationSize);
+}
@@ -0,0 +1,32 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.entity.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+    // Одним запросом и без гонки между проверкой и вставкой при одновременной загрузке одинаковых файлов
+    @Modifying
+    @Query(
+            value = "INSERT INTO image_blobs (name, ref_count) VALUES (:name, 1) " +
+                    "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1",
+            nativeQuery = true
+    )
+    int addReference(@Param("name") String name);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.name = :name AND b.refCount > 0")
+    int removeReference(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.name = :name")
+    Optional<ImageBlob> findByNameForUpdate(@Param("name") String name);
+}
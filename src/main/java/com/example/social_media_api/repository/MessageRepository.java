@@ -3,11 +3,20 @@ package com.example.social_media_api.repository;
 import com.example.social_media_api.domain.entity.Message;
 import com.example.social_media_api.domain.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findBySenderAndReceiverOrReceiverAndSenderOrderByCreateDate(User sender, User receiver, User sender1, User receiver1);
+
+    // Возвращает строки [sender_id, receiver_id, count] по всем перепискам пользователя
+    @Query("SELECT m.sender.id, m.receiver.id, COUNT(m) FROM Message m " +
+            "WHERE (m.sender.id = :userId OR m.receiver.id = :userId) AND m.createDate >= :since " +
+            "GROUP BY m.sender.id, m.receiver.id")
+    List<Object[]> countMessagesByUserSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
 }
@@ -1,15 +1,148 @@
 package com.example.social_media_api.repository;
 
+import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.utils.FeedCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+    String POST_DTO = "new com.example.social_media_api.domain.dto.PostDto(" +
+            "p.id, p.title, p.content, p.imageLink, a.id, a.name, p.createDate, p.views, p.version)";
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a")
+    List<PostDto> findAllPostDtos();
+
+    // Курсор только вперед: строки читаются с сервера порциями, а не загружаются в память целиком
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a ORDER BY p.id")
+    Stream<PostDto> streamAllPostDtos();
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE p.id = :id")
+    Optional<PostDto> findPostDtoById(@Param("id") Long id);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE p.id IN :ids")
+    List<PostDto> findPostDtosByIds(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT a FROM Post a WHERE a.author.id IN (SELECT us.channel.id FROM UserSubscription us WHERE us.subscriber.id = :userId)")
     Page<Post> findPostsBySubscribedUsersSortedByDate(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE a.id IN :authorIds")
+    List<PostDto> findByAuthorIds(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Post p WHERE p.author.id IN :authorIds")
+    long countByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE a.id IN :authorIds " +
+            "AND (p.createDate < :createDate OR (p.createDate = :createDate AND p.id < :postId)) " +
+            "ORDER BY p.createDate DESC, p.id DESC")
+    List<PostDto> findByAuthorIdsBefore(@Param("authorIds") Collection<Long> authorIds,
+                                     @Param("createDate") LocalDateTime createDate,
+                                     @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE a.id IN :authorIds " +
+            "AND (p.createDate > :createDate OR (p.createDate = :createDate AND p.id > :postId)) " +
+            "ORDER BY p.createDate ASC, p.id ASC")
+    List<PostDto> findByAuthorIdsAfter(@Param("authorIds") Collection<Long> authorIds,
+                                    @Param("createDate") LocalDateTime createDate,
+                                    @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE p.author.id = :authorId")
+    List<PostDto> findByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE p.author.id = :authorId " +
+            "AND (p.createDate < :createDate OR (p.createDate = :createDate AND p.id < :postId)) " +
+            "ORDER BY p.createDate DESC, p.id DESC")
+    List<PostDto> findByAuthorIdBefore(@Param("authorId") Long authorId,
+                                       @Param("createDate") LocalDateTime createDate,
+                                       @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT " + POST_DTO + " FROM Post p JOIN p.author a WHERE p.author.id = :authorId " +
+            "AND (p.createDate > :createDate OR (p.createDate = :createDate AND p.id > :postId)) " +
+            "ORDER BY p.createDate ASC, p.id ASC")
+    List<PostDto> findByAuthorIdAfter(@Param("authorId") Long authorId,
+                                      @Param("createDate") LocalDateTime createDate,
+                                      @Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT new com.example.social_media_api.utils.FeedCursor(p.createDate, p.id) FROM Post p WHERE p.author.id = :authorId")
+    List<FeedCursor> findRecentPostsByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
+    // Строка блокируется до конца транзакции: одновременная замена картинки прочитает уже новую ссылку
+    @Query(
+            value = "SELECT p.image_link FROM posts p WHERE p.id = :id AND p.deleted = false FOR UPDATE",
+            nativeQuery = true
+    )
+    Optional<String> findImageLinkForUpdate(@Param("id") Long id);
+
+    // Проверка автора входит в условие запроса, администратор может изменить любой пост
+    @Modifying
+    @Query("UPDATE Post p SET p.title = :title, p.content = :content, " +
+            "p.imageLink = COALESCE(:imageLink, p.imageLink), p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.deleted = false AND (p.author.id = :userId OR :admin = TRUE)")
+    int updateByIdAndAuthor(@Param("id") Long id, @Param("userId") Long userId, @Param("admin") boolean admin,
+                            @Param("title") String title, @Param("content") String content,
+                            @Param("imageLink") String imageLink);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.deleted = true, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.deleted = false AND (p.author.id = :userId OR :admin = TRUE)")
+    int softDeleteByIdAndAuthor(@Param("id") Long id, @Param("userId") Long userId, @Param("admin") boolean admin);
+
+    // Последний id пачки из limit постов после afterId, удаленные посты тоже учитываются
+    @Query(
+            value = "SELECT MAX(t.id) FROM (SELECT p.id FROM posts p WHERE p.id > :afterId ORDER BY p.id LIMIT :limit) t",
+            nativeQuery = true
+    )
+    Long findBatchLastId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    // Удаленные посты не видны JPQL запросам из-за @Where, поэтому для очистки используются нативные запросы.
+    // Строки блокируются до конца транзакции, а уже заблокированные пропускаются: очистка на другом узле возьмет другие посты
+    @Query(
+            value = "SELECT p.id, p.image_link FROM posts p WHERE p.deleted = true ORDER BY p.id LIMIT :limit " +
+                    "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true
+    )
+    List<Object[]> findDeletedPosts(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM posts WHERE id IN :ids AND deleted = true", nativeQuery = true)
+    int purgeDeletedByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query(
+            value = "INSERT INTO id_generators (sequence_name, next_val) " +
+                    "SELECT 'posts', (SELECT COALESCE(MAX(p.id), 0) FROM posts p) + :allocationSize FROM DUAL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM id_generators g WHERE g.sequence_name = 'posts')",
+            nativeQuery = true
+    )
+    int createIdGenerator(@Param("allocationSize") int allocationSize);
+
+    // Hibernate выдает id из диапазона (next_val - allocationSize, next_val], поэтому диапазон должен начинаться после последнего поста
+    @Transactional
+    @Modifying
+    @Query(
+            value = "UPDATE id_generators " +
+                    "SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(p.id), 0) + :allocationSize FROM posts p)) " +
+                    "WHERE sequence_name = 'posts'",
+            nativeQuery = true
+    )
+    int alignIdGenerator(@Param("allocationSize") int allocationSize);
 }
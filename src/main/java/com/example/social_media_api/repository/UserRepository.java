@@ -3,8 +3,11 @@ package com.example.social_media_api.repository;
 import com.example.social_media_api.domain.entity.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,6 +16,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByName(String name);
 
+    @Query("SELECT f.id FROM User u JOIN u.friends f WHERE u.id = :userId")
+    List<Long> findFriendIds(@Param("userId") Long userId);
+
     @EntityGraph(attributePaths = {"subscriptions", "subscribers"})
     Optional<User> findById(Long id);
 }
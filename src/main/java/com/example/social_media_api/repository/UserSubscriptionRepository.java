@@ -4,6 +4,8 @@ import com.example.social_media_api.domain.entity.User;
 import com.example.social_media_api.domain.entity.UserSubscription;
 import com.example.social_media_api.domain.entity.UserSubscriptionId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,13 @@ public interface UserSubscriptionRepository extends JpaRepository<UserSubscripti
     List<UserSubscription> findBySubscriber(User user);
     List<UserSubscription> findByChannel(User channel);
     UserSubscription findByChannelAndSubscriber(User channel, User subscriber);
+
+    @Query("SELECT us.channel.id FROM UserSubscription us WHERE us.subscriber.id = :subscriberId")
+    List<Long> findChannelIdsBySubscriberId(@Param("subscriberId") Long subscriberId);
+
+    @Query("SELECT COUNT(us) FROM UserSubscription us WHERE us.channel.id = :channelId")
+    long countSubscribersByChannelId(@Param("channelId") Long channelId);
+
+    @Query("SELECT us.subscriber.id FROM UserSubscription us WHERE us.channel.id = :channelId")
+    List<Long> findSubscriberIdsByChannelId(@Param("channelId") Long channelId);
 }
@@ -0,0 +1,348 @@
+package com.example.social_media_api.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Инвертированный индекс по заголовку и тексту постов, результаты ранжируются по BM25
+@Component
+public class PostSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_QUERY_TERMS = 10;
+    private static final int MIN_DELETED_TO_COMPACT = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docIdsByPostId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final int maxDocumentTerms;
+
+    // Номер документа растет при каждой индексации, измененный пост получает новый номер, а старый помечается удаленным
+    private long[] postIds = new long[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int nextDocId;
+    private int deletedCount;
+    private long totalLength;
+
+    @Autowired
+    public PostSearchIndex(@Value("${post.search.maxDocumentTerms:2000}") int maxDocumentTerms) {
+        this.maxDocumentTerms = maxDocumentTerms;
+    }
+
+    public void index(Long postId, String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, title, TITLE_WEIGHT);
+        addTerms(frequencies, content, 1);
+
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(postId);
+
+            int docId = nextDocId++;
+            if (docId == postIds.length) {
+                postIds = Arrays.copyOf(postIds, docId * 2);
+                lengths = Arrays.copyOf(lengths, docId * 2);
+            }
+
+            postIds[docId] = postId;
+            lengths[docId] = length;
+            totalLength += length;
+            docIdsByPostId.put(postId, docId);
+
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new PostingList()).add(docId, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Page<Long> search(String query, Pageable pageable) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            int documents = docIdsByPostId.size();
+            if (documents == 0) {
+                return Page.empty(pageable);
+            }
+
+            double averageLength = (double) totalLength / documents;
+            List<PostingList> lists = terms.stream()
+                    .limit(MAX_QUERY_TERMS)
+                    .map(postings::get)
+                    .filter(list -> list != null)
+                    .toList();
+
+            TopDocs top = new TopDocs(pageable.getOffset() + pageable.getPageSize());
+            int matched = score(lists, documents, averageLength, top);
+
+            if (pageable.getOffset() >= matched) {
+                return new PageImpl<>(new ArrayList<>(), pageable, matched);
+            }
+
+            List<Long> result = new ArrayList<>(pageable.getPageSize());
+            int[] docIds = top.getDocIds();
+            for (int i = (int) pageable.getOffset(); i < docIds.length; i++) {
+                result.add(postIds[docIds[i]]);
+            }
+
+            return new PageImpl<>(result, pageable, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int getCapacity() {
+        lock.readLock().lock();
+        try {
+            return postIds.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+
+        String lowerCase = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean letter = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                int length = i - start;
+                if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH) {
+                    terms.add(lowerCase.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    private void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : tokenize(text)) {
+            if (frequencies.size() >= maxDocumentTerms && !frequencies.containsKey(term)) {
+                continue;
+            }
+
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    // Списки обходятся параллельно по возрастанию номера документа: оценка документа считается целиком за один шаг
+    // и сразу попадает в кучу лучших, промежуточные оценки всех найденных документов не хранятся
+    private int score(List<PostingList> lists, int documents, double averageLength, TopDocs top) {
+        int count = lists.size();
+        PostingList.Reader[] readers = new PostingList.Reader[count];
+        double[] idfs = new double[count];
+        int[] current = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            PostingList list = lists.get(i);
+            readers[i] = list.reader();
+            idfs[i] = Math.log(1 + (documents - list.size() + 0.5) / (list.size() + 0.5));
+            current[i] = readers[i].next() ? readers[i].docId() : Integer.MAX_VALUE;
+        }
+
+        int matched = 0;
+        while (true) {
+            int docId = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                docId = Math.min(docId, current[i]);
+            }
+
+            if (docId == Integer.MAX_VALUE) {
+                return matched;
+            }
+
+            double score = 0;
+            double norm = K1 * (1 - B + B * lengths[docId] / averageLength);
+            for (int i = 0; i < count; i++) {
+                if (current[i] == docId) {
+                    int frequency = readers[i].frequency();
+                    score += idfs[i] * frequency * (K1 + 1) / (frequency + norm);
+                    current[i] = readers[i].next() ? readers[i].docId() : Integer.MAX_VALUE;
+                }
+            }
+
+            if (!deleted.get(docId)) {
+                matched++;
+                top.add(docId, score);
+            }
+        }
+    }
+
+    private void removeDocument(Long postId) {
+        Integer docId = docIdsByPostId.remove(postId);
+        if (docId == null) {
+            return;
+        }
+
+        deleted.set(docId);
+        deletedCount++;
+        totalLength -= lengths[docId];
+
+        if (deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount > docIdsByPostId.size() / 4) {
+            compact();
+        }
+    }
+
+    // Удаленные документы только помечаются, поэтому время от времени переписываем списки без них.
+    // Живые документы получают номера подряд в прежнем порядке, и массивы сжимаются до их числа
+    private void compact() {
+        int[] newDocIds = new int[nextDocId];
+        int live = 0;
+        for (int docId = 0; docId < nextDocId; docId++) {
+            newDocIds[docId] = deleted.get(docId) ? -1 : live++;
+        }
+
+        long[] newPostIds = new long[getCapacity(live)];
+        int[] newLengths = new int[newPostIds.length];
+        for (int docId = 0; docId < nextDocId; docId++) {
+            if (newDocIds[docId] >= 0) {
+                newPostIds[newDocIds[docId]] = postIds[docId];
+                newLengths[newDocIds[docId]] = lengths[docId];
+            }
+        }
+
+        postings.replaceAll((term, list) -> list.renumber(newDocIds));
+        postings.values().removeIf(list -> list.size() == 0);
+        docIdsByPostId.replaceAll((postId, docId) -> newDocIds[docId]);
+
+        postIds = newPostIds;
+        lengths = newLengths;
+        nextDocId = live;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private static int getCapacity(int documents) {
+        return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(documents, 1)) * 2);
+    }
+
+    // Куча лучших документов на примитивных массивах, в корне худший: с меньшей оценкой, при равной - более старый
+    private static class TopDocs {
+        private final long limit;
+        private double[] scores = new double[16];
+        private int[] docIds = new int[16];
+        private int size;
+
+        TopDocs(long limit) {
+            this.limit = limit;
+        }
+
+        void add(int docId, double score) {
+            if (size < limit) {
+                if (size == docIds.length) {
+                    scores = Arrays.copyOf(scores, size * 2);
+                    docIds = Arrays.copyOf(docIds, size * 2);
+                }
+
+                scores[size] = score;
+                docIds[size] = docId;
+                siftUp(size++);
+            } else if (size > 0 && isWorse(0, score, docId)) {
+                scores[0] = score;
+                docIds[0] = docId;
+                siftDown(0);
+            }
+        }
+
+        // Номера документов от лучшего к худшему, куча при этом разбирается
+        int[] getDocIds() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = docIds[0];
+                size--;
+                swap(0, size);
+                siftDown(0);
+            }
+
+            return result;
+        }
+
+        private boolean isWorse(int index, double score, int docId) {
+            return scores[index] < score || (scores[index] == score && docIds[index] < docId);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!isWorse(index, scores[parent], docIds[parent])) {
+                    return;
+                }
+
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                for (int child = index * 2 + 1; child <= index * 2 + 2 && child < size; child++) {
+                    if (isWorse(child, scores[worst], docIds[worst])) {
+                        worst = child;
+                    }
+                }
+
+                if (worst == index) {
+                    return;
+                }
+
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int first, int second) {
+            double score = scores[first];
+            scores[first] = scores[second];
+            scores[second] = score;
+
+            int docId = docIds[first];
+            docIds[first] = docIds[second];
+            docIds[second] = docId;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.social_media_api.search;
+
+import java.util.Arrays;
+
+// Список документов терма: номера документов возрастают, поэтому хранятся разности в varint вместе с частотой
+class PostingList {
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private int lastDocId = -1;
+
+    void add(int docId, int frequency) {
+        writeVarInt(docId - lastDocId);
+        writeVarInt(frequency);
+        lastDocId = docId;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Reader reader() {
+        return new Reader();
+    }
+
+    // newDocIds сохраняет порядок живых документов, удаленные отмечены -1
+    PostingList renumber(int[] newDocIds) {
+        PostingList result = new PostingList();
+
+        Reader reader = reader();
+        while (reader.next()) {
+            int docId = newDocIds[reader.docId()];
+            if (docId >= 0) {
+                result.add(docId, reader.frequency());
+            }
+        }
+
+        result.data = Arrays.copyOf(result.data, result.length);
+        return result;
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    class Reader {
+        private int position;
+        private int docId = -1;
+        private int frequency;
+
+        boolean next() {
+            if (position >= length) {
+                return false;
+            }
+
+            docId += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        int docId() {
+            return docId;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return value;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.Set;
 
 public class UserDetailsImpl implements UserDetails {
+    private Long id;
     private String email;
     private String password;
     private Set<Role> roles;
@@ -16,11 +17,20 @@ public class UserDetailsImpl implements UserDetails {
     public UserDetailsImpl() {
     }
     public UserDetailsImpl(User user) {
+        this.id = user.getId();
         this.email = user.getEmail();
         this.password = user.getPassword();
         this.roles = user.getRoles();
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isAdmin() {
+        return roles != null && roles.contains(Role.ADMIN);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles;
@@ -56,6 +66,10 @@ public class UserDetailsImpl implements UserDetails {
         return true;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public void setUsername(String email) {
         this.email = email;
     }
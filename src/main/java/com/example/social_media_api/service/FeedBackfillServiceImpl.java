@@ -0,0 +1,82 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.entity.FeedBackfill;
+import com.example.social_media_api.repository.FeedBackfillRepository;
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+
+// Заполняет таблицу ленты из уже существующих постов и подписок при первом запуске
+@Service
+public class FeedBackfillServiceImpl implements FeedBackfillService {
+    private static final String FEED_ENTRIES = "feed_entries";
+
+    private final FeedEntryRepository feedEntryRepository;
+    private final FeedBackfillRepository feedBackfillRepository;
+    private final PostRepository postRepository;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+
+    private volatile boolean started;
+    private volatile boolean finished;
+
+    @Autowired
+    public FeedBackfillServiceImpl(
+            FeedEntryRepository feedEntryRepository,
+            FeedBackfillRepository feedBackfillRepository,
+            PostRepository postRepository,
+            TransactionOperations transactionOperations,
+            @Value("${feed.backfill.batchSize:1000}") int batchSize
+    ) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.feedBackfillRepository = feedBackfillRepository;
+        this.postRepository = postRepository;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+    }
+
+    // За один запуск раскладываются не больше batchSize постов. Строка с местом заполнения блокируется на время пачки,
+    // поэтому узлы не обрабатывают одни и те же посты, а после перезапуска заполнение продолжается с того же места
+    @Override
+    @Scheduled(fixedDelayString = "${feed.backfill.interval:1000}")
+    public synchronized int backfillFeeds() {
+        if (finished) {
+            return 0;
+        }
+
+        if (!started) {
+            transactionOperations.executeWithoutResult(status -> {
+                if (feedEntryRepository.count() == 0) {
+                    feedBackfillRepository.createIfAbsent(FEED_ENTRIES);
+                }
+            });
+            started = true;
+        }
+
+        return transactionOperations.execute(status -> {
+            Optional<FeedBackfill> backfill = feedBackfillRepository.findByNameForUpdate(FEED_ENTRIES);
+            if (backfill.isEmpty()) {
+                finished = true;
+                return 0;
+            }
+
+            long lastPostId = backfill.get().getLastPostId();
+            Long batchLastPostId = postRepository.findBatchLastId(lastPostId, batchSize);
+            if (batchLastPostId == null) {
+                feedBackfillRepository.delete(backfill.get());
+                finished = true;
+                return 0;
+            }
+
+            int inserted = feedEntryRepository.backfillPosts(lastPostId, batchLastPostId);
+            backfill.get().setLastPostId(batchLastPostId);
+            return inserted;
+        });
+    }
+}
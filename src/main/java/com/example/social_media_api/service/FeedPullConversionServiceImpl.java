@@ -0,0 +1,55 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+@Service
+public class FeedPullConversionServiceImpl implements FeedPullConversionService {
+    private final FeedEntryRepository feedEntryRepository;
+    private final FeedPullAuthorRepository feedPullAuthorRepository;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+
+    @Autowired
+    public FeedPullConversionServiceImpl(
+            FeedEntryRepository feedEntryRepository,
+            FeedPullAuthorRepository feedPullAuthorRepository,
+            TransactionOperations transactionOperations,
+            @Value("${feed.fanout.conversion.batchSize:1000}") int batchSize
+    ) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.feedPullAuthorRepository = feedPullAuthorRepository;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+    }
+
+    // Записи автора, переведенного в pull-режим, удаляются по batchSize за запуск,
+    // чтобы не держать блокировки на feed_entries и не нагружать базу одним большим удалением
+    @Override
+    @Scheduled(fixedDelayString = "${feed.fanout.conversion.interval:1000}")
+    public synchronized int convertPullAuthors() {
+        List<Long> authorIds = feedPullAuthorRepository.findUnconvertedAuthorIds(PageRequest.of(0, 1));
+        if (authorIds.isEmpty()) {
+            return 0;
+        }
+
+        Long authorId = authorIds.get(0);
+
+        return transactionOperations.execute(status -> {
+            int deleted = feedEntryRepository.deleteByAuthorId(authorId, batchSize);
+            if (deleted < batchSize) {
+                feedPullAuthorRepository.markConverted(authorId);
+            }
+
+            return deleted;
+        });
+    }
+}
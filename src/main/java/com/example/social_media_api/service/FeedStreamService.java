@@ -0,0 +1,11 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface FeedStreamService {
+    SseEmitter subscribe(User user);
+    void publish(Post post);
+    void refreshSubscriptions(Long subscriberId);
+}
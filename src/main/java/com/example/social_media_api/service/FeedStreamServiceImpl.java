@@ -0,0 +1,216 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class FeedStreamServiceImpl implements FeedStreamService {
+    private static final Logger log = LoggerFactory.getLogger(FeedStreamServiceImpl.class);
+
+    private final UserSubscriptionRepository userSubscriptionRepository;
+    private final ObjectMapper objectMapper;
+    private final Executor dispatcher;
+    private final long timeout;
+
+    private final Map<Long, Set<Connection>> connectionsByChannel = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Connection>> connectionsBySubscriber = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FeedStreamServiceImpl(
+            UserSubscriptionRepository userSubscriptionRepository,
+            ObjectMapper objectMapper,
+            @Value("${feed.stream.timeout:1800000}") long timeout,
+            @Value("${feed.stream.dispatchThreads:2}") int dispatchThreads,
+            @Value("${feed.stream.dispatchQueueSize:10000}") int dispatchQueueSize
+    ) {
+        this(userSubscriptionRepository, objectMapper, timeout, new ThreadPoolExecutor(
+                dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueueSize),
+                new ThreadPoolExecutor.AbortPolicy()
+        ));
+    }
+
+    FeedStreamServiceImpl(UserSubscriptionRepository userSubscriptionRepository, ObjectMapper objectMapper,
+                          long timeout, Executor dispatcher) {
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public SseEmitter subscribe(User user) {
+        SseEmitter emitter = createEmitter();
+        Connection connection = new Connection(user.getId(), emitter);
+
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unregister(connection));
+
+        connectionsBySubscriber.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(connection);
+        subscribeToChannels(connection, userSubscriptionRepository.findChannelIdsBySubscriberId(user.getId()));
+
+        return emitter;
+    }
+
+    @Override
+    public void publish(Post post) {
+        Long authorId = post.getAuthor().getId();
+        Long postId = post.getId();
+        String data = serialize(new PostDto(post));
+
+        TransactionUtils.runAfterCommit(() -> {
+            if (connectionsByChannel.containsKey(authorId) && !dispatch(() -> send(authorId, postId, data))) {
+                // Событие не будет доставлено: соединения закрываются, и клиент догрузит пропущенное через since
+                log.warn("Feed stream dispatch queue is full, closing connections of channel {}", authorId);
+                connectionsByChannel.getOrDefault(authorId, Collections.emptySet()).forEach(this::close);
+            }
+        });
+    }
+
+    @Override
+    public void refreshSubscriptions(Long subscriberId) {
+        Set<Connection> connections = connectionsBySubscriber.get(subscriberId);
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+
+        List<Long> channelIds = userSubscriptionRepository.findChannelIdsBySubscriberId(subscriberId);
+        for (Connection connection : connections) {
+            unsubscribeFromChannels(connection);
+            subscribeToChannels(connection, channelIds);
+        }
+    }
+
+    // Периодически отправляем комментарий, чтобы прокси не закрывали соединение и чтобы находить отключившихся клиентов.
+    // Отправка блокируется на медленном клиенте, поэтому выполняется в потоках рассылки, а не в потоке планировщика
+    @Scheduled(fixedDelayString = "${feed.stream.heartbeat:15000}")
+    public void sendHeartbeat() {
+        if (!connectionsBySubscriber.isEmpty() && !dispatch(this::sendHeartbeats)) {
+            // Пропущенный комментарий ничего не теряет, следующий уйдет через интервал
+            log.warn("Feed stream dispatch queue is full, skipping heartbeat");
+        }
+    }
+
+    private void sendHeartbeats() {
+        connectionsBySubscriber.values().forEach(connections -> connections.forEach(connection -> {
+            try {
+                connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                unregister(connection);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        connectionsBySubscriber.values().forEach(connections -> connections.forEach(connection -> connection.emitter.complete()));
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeout);
+    }
+
+    private void send(Long authorId, Long postId, String data) {
+        Set<Connection> connections = connectionsByChannel.getOrDefault(authorId, Collections.emptySet());
+
+        for (Connection connection : connections) {
+            try {
+                connection.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(postId))
+                        .name("post")
+                        .data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                unregister(connection);
+            }
+        }
+    }
+
+    private boolean dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void close(Connection connection) {
+        unregister(connection);
+        connection.emitter.complete();
+    }
+
+    private void subscribeToChannels(Connection connection, List<Long> channelIds) {
+        connection.channelIds = new HashSet<>(channelIds);
+        for (Long channelId : connection.channelIds) {
+            connectionsByChannel.computeIfAbsent(channelId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        }
+    }
+
+    private void unsubscribeFromChannels(Connection connection) {
+        for (Long channelId : connection.channelIds) {
+            connectionsByChannel.computeIfPresent(channelId, (id, connections) -> {
+                connections.remove(connection);
+                return connections.isEmpty() ? null : connections;
+            });
+        }
+    }
+
+    private void unregister(Connection connection) {
+        unsubscribeFromChannels(connection);
+        connectionsBySubscriber.computeIfPresent(connection.subscriberId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private String serialize(PostDto post) {
+        try {
+            return objectMapper.writeValueAsString(post);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("An error occurred while serializing post", e);
+        }
+    }
+
+    private static class Connection {
+        private final Long subscriberId;
+        private final SseEmitter emitter;
+        private volatile Set<Long> channelIds = Collections.emptySet();
+
+        Connection(Long subscriberId, SseEmitter emitter) {
+            this.subscriberId = subscriberId;
+            this.emitter = emitter;
+        }
+    }
+}
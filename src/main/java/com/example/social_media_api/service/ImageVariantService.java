@@ -0,0 +1,9 @@
+package com.example.social_media_api.service;
+
+import java.nio.file.Path;
+
+public interface ImageVariantService {
+    void generateVariants(String imageLink);
+
+    Path findImage(String fileName);
+}
@@ -0,0 +1,238 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.utils.ImageVariant;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.example.social_media_api.utils.UploadLayout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+    // Только имена, которые выдает FileManagerUtil: без каталогов и переходов вверх
+    private static final Pattern IMAGE_NAME = Pattern.compile("[A-Za-z0-9_-]+\\.(png|jpg|jpeg)");
+    private static final int MAX_VARIANT_SIZE = Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxSize)
+            .max()
+            .orElse(0);
+
+    private final String uploadPath;
+    private final long maxPixels;
+    private final Executor executor;
+
+    // Очередь ограничена: при перегрузке копии не создаются, а /img/** отдает вместо них оригинал
+    @Autowired
+    public ImageVariantServiceImpl(
+            @Value("${upload.path}") String uploadPath,
+            @Value("${image.variants.maxPixels:50000000}") long maxPixels,
+            @Value("${image.variants.threads:2}") int threads,
+            @Value("${image.variants.queueSize:1000}") int queueSize
+    ) {
+        this(uploadPath, maxPixels, new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new ThreadPoolExecutor.DiscardPolicy()
+        ));
+    }
+
+    ImageVariantServiceImpl(String uploadPath, long maxPixels, Executor executor) {
+        this.uploadPath = uploadPath;
+        this.maxPixels = maxPixels;
+        this.executor = executor;
+    }
+
+    @Override
+    public void generateVariants(String imageLink) {
+        if (imageLink == null) {
+            return;
+        }
+
+        TransactionUtils.runAfterCommit(() -> executor.execute(() -> createVariants(imageLink)));
+    }
+
+    // Пока копия картинки не создана, вместо нее возвращается оригинал
+    @Override
+    public Path findImage(String fileName) {
+        if (!IMAGE_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+
+        Path root = Paths.get(uploadPath);
+        Path path = UploadLayout.find(root, fileName);
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+
+        String originalFileName = ImageVariant.getOriginalFileName(fileName);
+        if (originalFileName == null) {
+            return null;
+        }
+
+        Path originalPath = UploadLayout.find(root, originalFileName);
+        return Files.isRegularFile(originalPath) ? originalPath : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    void createVariants(String imageLink) {
+        Path root = Paths.get(uploadPath);
+
+        // Повторная загрузка того же содержимого ссылается на уже обработанный файл
+        if (hasVariants(imageLink)) {
+            return;
+        }
+
+        try {
+            BufferedImage original = read(UploadLayout.find(root, imageLink));
+            if (original == null) {
+                return;
+            }
+
+            boolean png = imageLink.toLowerCase().endsWith(".png");
+            for (ImageVariant variant : ImageVariant.values()) {
+                BufferedImage image = resize(original, variant.getMaxSize(), png);
+                write(image, png ? "png" : "jpg", UploadLayout.getPath(root, variant.getFileName(imageLink)));
+            }
+
+            // Пост могли удалить, пока копии создавались
+            if (!UploadLayout.exists(root, imageLink)) {
+                deleteVariants(imageLink);
+            }
+        } catch (IOException e) {
+            // Без копий картинка все равно доступна: вместо них отдается оригинал
+            deleteVariants(imageLink);
+        }
+    }
+
+    // Размеры читаются из заголовка до декодирования: файл в несколько мегабайт может содержать
+    // картинку на сотни мегапикселей, которая не поместится в памяти. Такие картинки остаются без копий
+    private BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                return null;
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+
+                // Большая картинка декодируется через строку и столбец, но не меньше двойного размера самой большой копии,
+                // чтобы уменьшение по шагам сгладило пропущенные пиксели
+                int step = Math.max(1, Math.max(width, height) / (MAX_VARIANT_SIZE * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage original, int maxSize, boolean png) {
+        int width = original.getWidth();
+        int height = original.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Уменьшаем вдвое за шаг: билинейная интерполяция за один шаг дает заметные артефакты
+        BufferedImage result = original;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            result = draw(result, width, height, png);
+        } while (width != targetWidth || height != targetHeight);
+
+        return result;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height, boolean png) {
+        BufferedImage target = new BufferedImage(width, height, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return target;
+    }
+
+    // Файл пишется во временный и переименовывается, чтобы /img/** не отдал недописанную копию
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant", ".tmp");
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("No writer for " + format);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean hasVariants(String imageLink) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!UploadLayout.exists(Paths.get(uploadPath), variant.getFileName(imageLink))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void deleteVariants(String imageLink) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                Path root = Paths.get(uploadPath);
+                Files.deleteIfExists(UploadLayout.getLegacyPath(root, variant.getFileName(imageLink)));
+                Files.deleteIfExists(UploadLayout.getPath(root, variant.getFileName(imageLink)));
+            } catch (IOException ignored) {
+                // Оставшийся файл не мешает работе
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.social_media_api.service;
+
+public interface PostPurgeService {
+    int purgeDeletedPosts();
+}
@@ -0,0 +1,62 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FileManagerUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class PostPurgeServiceImpl implements PostPurgeService {
+    private final PostRepository postRepository;
+    private final TimelineService timelineService;
+    private final RankedFeedService rankedFeedService;
+    private final FileManagerUtil fileManagerUtil;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+
+    @Autowired
+    public PostPurgeServiceImpl(
+            PostRepository postRepository,
+            TimelineService timelineService,
+            RankedFeedService rankedFeedService,
+            FileManagerUtil fileManagerUtil,
+            TransactionOperations transactionOperations,
+            @Value("${post.purge.batchSize:200}") int batchSize
+    ) {
+        this.postRepository = postRepository;
+        this.timelineService = timelineService;
+        this.rankedFeedService = rankedFeedService;
+        this.fileManagerUtil = fileManagerUtil;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+    }
+
+    // За один запуск очищается не больше batchSize постов, так что массовое удаление не нагружает базу и диск разом
+    @Override
+    @Scheduled(fixedDelayString = "${post.purge.interval:1000}")
+    public synchronized int purgeDeletedPosts() {
+        // Выборка и удаление в одной транзакции: пока строки заблокированы, другой узел не снимет те же ссылки на картинки
+        return transactionOperations.execute(status -> {
+            List<Object[]> deletedPosts = postRepository.findDeletedPosts(batchSize);
+            if (deletedPosts.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> postIds = new ArrayList<>(deletedPosts.size());
+            for (Object[] row : deletedPosts) {
+                postIds.add(((Number) row[0]).longValue());
+                fileManagerUtil.deleteFile((String) row[1]);
+            }
+
+            timelineService.removePosts(postIds);
+            rankedFeedService.removePosts(postIds);
+            return postRepository.purgeDeletedByIds(postIds);
+        });
+    }
+}
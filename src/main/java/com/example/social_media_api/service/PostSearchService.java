@@ -0,0 +1,12 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface PostSearchService {
+    Page<PostDto> search(String query, Pageable pageable);
+    void indexPost(Post post);
+    void removePost(Post post);
+}
@@ -0,0 +1,79 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.search.PostSearchIndex;
+import com.example.social_media_api.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class PostSearchServiceImpl implements PostSearchService {
+    private final PostSearchIndex postSearchIndex;
+    private final PostRepository postRepository;
+
+    @Autowired
+    public PostSearchServiceImpl(PostSearchIndex postSearchIndex, PostRepository postRepository) {
+        this.postSearchIndex = postSearchIndex;
+        this.postRepository = postRepository;
+    }
+
+    @Override
+    public Page<PostDto> search(String query, Pageable pageable) {
+        Page<Long> postIds = postSearchIndex.search(query, pageable);
+        if (postIds.getContent().isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, postIds.getTotalElements());
+        }
+
+        Map<Long, PostDto> posts = postRepository.findPostDtosByIds(postIds.getContent()).stream()
+                .collect(Collectors.toMap(PostDto::getId, Function.identity()));
+
+        // Пост мог быть удален между поиском и загрузкой
+        List<PostDto> content = postIds.getContent().stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(content, pageable, postIds.getTotalElements());
+    }
+
+    @Override
+    public void indexPost(Post post) {
+        Long postId = post.getId();
+        String title = post.getTitle();
+        String content = post.getContent();
+
+        TransactionUtils.runAfterCommit(() -> postSearchIndex.index(postId, title, content));
+    }
+
+    @Override
+    public void removePost(Post post) {
+        Long postId = post.getId();
+
+        TransactionUtils.runAfterCommit(() -> postSearchIndex.remove(postId));
+    }
+
+    // Индекс хранится только в памяти, поэтому строится заново при каждом запуске
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        try (Stream<PostDto> posts = postRepository.streamAllPostDtos()) {
+            posts.forEach(post -> postSearchIndex.index(post.getId(), post.getTitle(), post.getContent()));
+        }
+    }
+}
@@ -1,25 +1,48 @@
 package com.example.social_media_api.service;
 
+import com.example.social_media_api.domain.dto.CursorPageDto;
 import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.exception.AccessDeniedException;
 import com.example.social_media_api.exception.FileManagerException;
 import com.example.social_media_api.exception.PostNotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface PostService {
     List<PostDto> findAllPosts();
+    void writeAllPosts(OutputStream outputStream) throws IOException;
     PostDto findPostById(Long id) throws PostNotFoundException;
+    String getPostETag(Long id) throws PostNotFoundException;
     PostDto createPost(PostDto post, MultipartFile image, User author) throws FileManagerException;
-    PostDto updatePost(Long id, PostDto post, MultipartFile image)
-            throws PostNotFoundException, FileManagerException;
+    List<PostDto> createPosts(List<PostDto> posts, User author) throws IllegalArgumentException;
+    PostDto updatePost(Long id, PostDto post, MultipartFile image, Long userId, boolean admin)
+            throws PostNotFoundException, AccessDeniedException, FileManagerException;
 
-    void deletePost(Long id) throws PostNotFoundException, FileManagerException;
+    void deletePost(Long id, Long userId, boolean admin) throws PostNotFoundException, AccessDeniedException;
+
+    Page<PostDto> searchPosts(String query, int page, int pageSize) throws IllegalArgumentException;
 
     Page<PostDto> getPostsBySubscriber(User user, String sortType, int page, int pageSize)
             throws IllegalArgumentException;
 
-    User getAuthorFromPostByPostId(Long id) throws PostNotFoundException;
+    Page<PostDto> getRankedPostsBySubscriber(User user, int page, int pageSize)
+            throws IllegalArgumentException;
+
+    Slice<PostDto> getPostSliceBySubscriber(User user, String sortType, int page, int pageSize)
+            throws IllegalArgumentException;
+
+    CursorPageDto<PostDto> getPostsBySubscriberAfterCursor(User user, String sortType, String cursor, int pageSize)
+            throws IllegalArgumentException;
+
+    CursorPageDto<PostDto> getPostsBySubscriberSince(User user, String since, int pageSize)
+            throws IllegalArgumentException, PostNotFoundException;
+
+    CursorPageDto<PostDto> getPostsByAuthor(Long authorId, String sortType, String cursor, int pageSize)
+            throws IllegalArgumentException;
 }
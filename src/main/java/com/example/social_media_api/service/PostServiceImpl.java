@@ -1,41 +1,121 @@
 package com.example.social_media_api.service;
 
+import com.example.social_media_api.cache.FeedCache;
+import com.example.social_media_api.cache.PostCache;
+import com.example.social_media_api.cache.PostSnapshot;
+import com.example.social_media_api.cache.RecentPostsCache;
+import com.example.social_media_api.domain.dto.CursorPageDto;
 import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.entity.Post;
 import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.exception.AccessDeniedException;
 import com.example.social_media_api.exception.FileManagerException;
 import com.example.social_media_api.exception.PostNotFoundException;
 import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FeedCursor;
 import com.example.social_media_api.utils.FileManagerUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PostServiceImpl implements PostService {
+    // Принимает как ISO формат, так и формат поля create_date из PostDto
+    private static final DateTimeFormatter SINCE_DATE_FORMATTER = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendPattern("[ ]['T']")
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+    // Id поста передается с префиксом, чтобы его нельзя было спутать с датой
+    private static final String SINCE_ID_PREFIX = "id:";
+    private static final int STREAM_CHUNK_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final String ACCESS_DENIED_MESSAGE = "Access denied. Only the author can modify or delete the post";
+
     private final PostRepository postRepository;
     private final FileManagerUtil fileManagerUtil;
+    private final TimelineService timelineService;
+    private final FeedCache feedCache;
+    private final PostCache postCache;
+    private final RecentPostsCache recentPostsCache;
+    private final FeedStreamService feedStreamService;
+    private final RankedFeedService rankedFeedService;
+    private final PostSearchService postSearchService;
+    private final PostViewService postViewService;
+    private final ImageVariantService imageVariantService;
+    private final ObjectMapper objectMapper;
 
 
     @Autowired
-    public PostServiceImpl(PostRepository postRepository, FileManagerUtil fileManagerUtil) {
+    public PostServiceImpl(PostRepository postRepository, FileManagerUtil fileManagerUtil,
+                           TimelineService timelineService, FeedCache feedCache, PostCache postCache,
+                           RecentPostsCache recentPostsCache, FeedStreamService feedStreamService,
+                           RankedFeedService rankedFeedService, PostSearchService postSearchService,
+                           PostViewService postViewService, ImageVariantService imageVariantService,
+                           ObjectMapper objectMapper) {
         this.postRepository = postRepository;
         this.fileManagerUtil = fileManagerUtil;
+        this.timelineService = timelineService;
+        this.feedCache = feedCache;
+        this.postCache = postCache;
+        this.recentPostsCache = recentPostsCache;
+        this.feedStreamService = feedStreamService;
+        this.rankedFeedService = rankedFeedService;
+        this.postSearchService = postSearchService;
+        this.postViewService = postViewService;
+        this.imageVariantService = imageVariantService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Таблица генератора id создается пустой, сдвигаем ее за уже существующие посты до первой вставки
+    @PostConstruct
+    public void initPostIdGenerator() {
+        postRepository.createIdGenerator(Post.ID_ALLOCATION_SIZE);
+        postRepository.alignIdGenerator(Post.ID_ALLOCATION_SIZE);
     }
 
     @Override
     public List<PostDto> findAllPosts() {
-        return postRepository.findAll().stream()
-                .map(PostDto::new)
-                .collect(Collectors.toList());
+        return postRepository.findAllPostDtos();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeAllPosts(OutputStream outputStream) throws IOException {
+        // Проекция не попадает в контекст персистентности, поэтому память не растет вместе с таблицей
+        try (Stream<PostDto> posts = postRepository.streamAllPostDtos()) {
+            Iterator<PostDto> iterator = posts.iterator();
+
+            int written = 0;
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+
+                if (++written % STREAM_CHUNK_SIZE == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+
+        outputStream.flush();
     }
 
     @Override
@@ -45,19 +125,126 @@ public class PostServiceImpl implements PostService {
         Sort sort = validPaginationAndGetSort(sortType, page, pageSize);
         Pageable pageable = PageRequest.of(page, pageSize, sort);
 
-        Page<Post> resultPage = postRepository.findPostsBySubscribedUsersSortedByDate(user.getId(), pageable);
+        return feedCache.get(user.getId(), pageable, () -> timelineService.getTimeline(user.getId(), pageable));
+    }
+
+    @Override
+    public Slice<PostDto> getPostSliceBySubscriber(User user, String sortType, int page, int pageSize)
+            throws IllegalArgumentException {
+
+        Sort sort = validPaginationAndGetSort(sortType, page, pageSize);
+        Pageable pageable = PageRequest.of(page, pageSize, sort);
+
+        return timelineService.getTimelineSlice(user.getId(), pageable);
+    }
+
+    @Override
+    public Page<PostDto> getRankedPostsBySubscriber(User user, int page, int pageSize)
+            throws IllegalArgumentException {
+
+        validPagination(page, pageSize);
+
+        return rankedFeedService.getRankedTimeline(user.getId(), page, pageSize);
+    }
+
+    @Override
+    public Page<PostDto> searchPosts(String query, int page, int pageSize) throws IllegalArgumentException {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query cannot be empty");
+        }
+
+        validPagination(page, pageSize);
+
+        return postSearchService.search(query, PageRequest.of(page, pageSize));
+    }
+
+    @Override
+    public CursorPageDto<PostDto> getPostsBySubscriberAfterCursor(User user, String sortType, String cursor, int pageSize)
+            throws IllegalArgumentException {
+
+        Sort.Direction direction = validCursorPaginationAndGetDirection(sortType, pageSize);
+        FeedCursor feedCursor = cursor == null || cursor.isEmpty() ? null : FeedCursor.decode(cursor);
+
+        return getTimelinePage(user, feedCursor, direction, pageSize);
+    }
+
+    @Override
+    public CursorPageDto<PostDto> getPostsBySubscriberSince(User user, String since, int pageSize)
+            throws IllegalArgumentException, PostNotFoundException {
+
+        if (since == null || since.isEmpty()) {
+            throw new IllegalArgumentException("Since value cannot be empty");
+        }
+
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        return getTimelinePage(user, getSinceCursor(since), Sort.Direction.ASC, pageSize);
+    }
+
+    @Override
+    public CursorPageDto<PostDto> getPostsByAuthor(Long authorId, String sortType, String cursor, int pageSize)
+            throws IllegalArgumentException {
+
+        Sort.Direction direction = validCursorPaginationAndGetDirection(sortType, pageSize);
+        FeedCursor feedCursor = cursor == null || cursor.isEmpty() ? null : FeedCursor.decode(cursor);
+
+        List<PostDto> posts = getAuthorPosts(authorId, feedCursor, direction, pageSize + 1);
+
+        return toCursorPage(posts, pageSize);
+    }
+
+    private List<PostDto> getAuthorPosts(Long authorId, FeedCursor cursor, Sort.Direction direction, int limit) {
+        if (cursor == null) {
+            Sort sort = Sort.by(direction, "createDate").and(Sort.by(direction, "id"));
+            return postRepository.findByAuthorId(authorId, PageRequest.of(0, limit, sort));
+        }
+
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (direction.isDescending()) {
+            return postRepository.findByAuthorIdBefore(authorId, cursor.getCreateDate(), cursor.getPostId(), pageable);
+        }
+
+        return postRepository.findByAuthorIdAfter(authorId, cursor.getCreateDate(), cursor.getPostId(), pageable);
+    }
+
+    private CursorPageDto<PostDto> getTimelinePage(User user, FeedCursor feedCursor,
+                                                   Sort.Direction direction, int pageSize) {
+        // Запрашиваем на один пост больше, чтобы понять, есть ли следующая страница
+        List<PostDto> posts = timelineService.getTimeline(user.getId(), feedCursor, direction, pageSize + 1);
+
+        return toCursorPage(posts, pageSize);
+    }
 
-        return resultPage.map(PostDto::new);
+    private CursorPageDto<PostDto> toCursorPage(List<PostDto> posts, int pageSize) {
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            nextCursor = FeedCursor.of(posts.get(pageSize - 1)).encode();
+        }
+
+        return new CursorPageDto<>(posts, nextCursor);
     }
 
     @Override
     public PostDto findPostById(Long id) throws PostNotFoundException {
-        Post postFromDb = checkPostPresentAndGet(id);
+        PostDto post = getPostSnapshot(id).toDto();
 
-        return new PostDto(postFromDb);
+        postViewService.recordView(id);
+        post.setViews(post.getViews() + postViewService.getPendingViews(id));
+
+        return post;
     }
 
     @Override
+    public String getPostETag(Long id) throws PostNotFoundException {
+        return getPostSnapshot(id).toDto().getETag();
+    }
+
+    @Override
+    @Transactional
     public PostDto createPost(PostDto post, MultipartFile image, User author) throws FileManagerException {
 
         String imageLink = fileManagerUtil.saveFileAndGetLink(image);
@@ -70,52 +257,158 @@ public class PostServiceImpl implements PostService {
                 LocalDateTime.now()
         );
 
-        return new PostDto(postRepository.save(newPost));
+        Post savedPost = postRepository.save(newPost);
+        imageVariantService.generateVariants(imageLink);
+        timelineService.addPost(savedPost);
+        recentPostsCache.add(savedPost);
+        feedCache.evictSubscribersOnNewPost(author.getId());
+        rankedFeedService.invalidateSubscribersOf(author.getId());
+        postSearchService.indexPost(savedPost);
+        feedStreamService.publish(savedPost);
+
+        return new PostDto(savedPost);
     }
 
     @Override
-    public PostDto updatePost(Long id, PostDto postDto, MultipartFile image)
-            throws PostNotFoundException, FileManagerException {
+    @Transactional
+    public List<PostDto> createPosts(List<PostDto> posts, User author) throws IllegalArgumentException {
+        validBatch(posts);
+
+        LocalDateTime createDate = LocalDateTime.now();
+        List<Post> newPosts = posts.stream()
+                .map(post -> new Post(post.getTitle(), post.getContent(), null, author, createDate))
+                .toList();
+
+        // Вставки копятся в сессии и уходят одним JDBC батчем при первом flush
+        List<Post> savedPosts = postRepository.saveAll(newPosts);
+        timelineService.addPosts(savedPosts);
+        for (Post savedPost : savedPosts) {
+            recentPostsCache.add(savedPost);
+            postSearchService.indexPost(savedPost);
+            feedStreamService.publish(savedPost);
+        }
+        feedCache.evictSubscribersOnNewPost(author.getId());
+        rankedFeedService.invalidateSubscribersOf(author.getId());
+
+        return savedPosts.stream()
+                .map(PostDto::new)
+                .toList();
+    }
 
-        Post post = checkPostPresentAndGet(id);
+    @Override
+    @Transactional
+    public PostDto updatePost(Long id, PostDto postDto, MultipartFile image, Long userId, boolean admin)
+            throws PostNotFoundException, AccessDeniedException, FileManagerException {
 
         String imageLink = fileManagerUtil.saveFileAndGetLink(image);
-        if (imageLink == null) {
-            imageLink = post.getImageLink();
-        } else {
-            fileManagerUtil.deleteFile(post.getImageLink());
+
+        // Старая ссылка читается из заблокированной строки, а не из кеша: при одновременной замене картинки
+        // каждая транзакция освободит ту ссылку, которую заменила она
+        String oldImageLink = imageLink == null ? null : postRepository.findImageLinkForUpdate(id).orElse(null);
+
+        int updated = postRepository.updateByIdAndAuthor(
+                id, userId, admin, postDto.getTitle(), postDto.getContent(), imageLink);
+
+        // Ссылку на новую картинку снимет откат транзакции
+        if (updated == 0) {
+            throw getMutationFailure(id);
         }
 
-        post.setTitle(postDto.getTitle());
-        post.setContent(postDto.getContent());
-        post.setImageLink(imageLink);
+        imageVariantService.generateVariants(imageLink);
+
+        // Ссылка снимается в этой же транзакции, сам файл FileManagerUtil удалит после коммита
+        if (imageLink != null && oldImageLink != null) {
+            fileManagerUtil.deleteFile(oldImageLink);
+        }
+
+        PostDto updatedPost = postRepository.findPostDtoById(id)
+                .orElseThrow(() -> new PostNotFoundException("Post not found"));
+
+        postCache.evict(id);
+        postSearchService.indexPost(toPost(updatedPost));
+        feedCache.evictSubscribersOf(updatedPost.getAuthor().getId());
 
-        return new PostDto(postRepository.save(post));
+        return updatedPost;
     }
 
     @Override
-    public void deletePost(Long id) throws PostNotFoundException, FileManagerException {
-        Post post = checkPostPresentAndGet(id);
+    @Transactional
+    public void deletePost(Long id, Long userId, boolean admin)
+            throws PostNotFoundException, AccessDeniedException {
 
-        fileManagerUtil.deleteFile(post.getImageLink());
+        PostSnapshot snapshot = getPostSnapshot(id);
 
-        postRepository.delete(post);
+        // Пост только помечается удаленным, записи ленты, ранжирования и картинку удаляет PostPurgeService
+        if (postRepository.softDeleteByIdAndAuthor(id, userId, admin) == 0) {
+            throw getMutationFailure(id);
+        }
+
+        Post post = toPost(snapshot.toDto());
+
+        recentPostsCache.remove(post);
+        postSearchService.removePost(post);
+        postCache.evict(id);
+        feedCache.evictSubscribersOf(post.getAuthor().getId());
     }
 
-    @Override
-    public User getAuthorFromPostByPostId(Long id) throws PostNotFoundException {
-        Post post = checkPostPresentAndGet(id);
-        return post.getAuthor();
+    private RuntimeException getMutationFailure(Long id) {
+        if (postRepository.existsById(id)) {
+            return new AccessDeniedException(ACCESS_DENIED_MESSAGE);
+        }
+
+        return new PostNotFoundException("Post not found");
     }
 
-    private Post checkPostPresentAndGet(Long id) throws PostNotFoundException {
-        Post postFromDb = postRepository.findById(id).orElse(null);
+    private Post toPost(PostDto postDto) {
+        User author = new User();
+        author.setId(postDto.getAuthor().getId());
+
+        Post post = new Post(postDto.getTitle(), postDto.getContent(), postDto.getImageLink(), author, postDto.getCreateDate());
+        post.setId(postDto.getId());
 
-        if (postFromDb == null) {
-            throw new PostNotFoundException("Post not found");
+        return post;
+    }
+
+    private PostSnapshot getPostSnapshot(Long id) throws PostNotFoundException {
+        return postCache.get(id, postId -> postRepository.findPostDtoById(postId).map(PostSnapshot::new))
+                .orElseThrow(() -> new PostNotFoundException("Post not found"));
+    }
+
+    private FeedCursor getSinceCursor(String since) throws IllegalArgumentException, PostNotFoundException {
+        if (since.startsWith(SINCE_ID_PREFIX)) {
+            try {
+                return FeedCursor.of(getPostSnapshot(Long.parseLong(since.substring(SINCE_ID_PREFIX.length()))).toDto());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid since value");
+            }
         }
 
-        return postFromDb;
+        try {
+            // Посты с той же датой уже есть у клиента, поэтому начинаем после максимального id
+            return new FeedCursor(LocalDateTime.parse(since, SINCE_DATE_FORMATTER), Long.MAX_VALUE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid since value");
+        }
+    }
+
+    private void validBatch(List<PostDto> posts) {
+        if (posts == null || posts.isEmpty()) {
+            throw new IllegalArgumentException("Posts cannot be empty");
+        }
+
+        if (posts.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many posts, maximum is " + MAX_BATCH_SIZE);
+        }
+
+        for (PostDto post : posts) {
+            if (post.getTitle() == null || post.getTitle().isBlank()) {
+                throw new IllegalArgumentException("Title can not be empty");
+            }
+
+            if (post.getContent() == null || post.getContent().isBlank()) {
+                throw new IllegalArgumentException("Content can not be empty");
+            }
+        }
     }
 
     private Sort validPaginationAndGetSort(String sortType, int page, int pageSize) {
@@ -123,6 +416,12 @@ public class PostServiceImpl implements PostService {
             throw new IllegalArgumentException("Sort type cannot be null");
         }
 
+        validPagination(page, pageSize);
+
+        return Sort.by(getSortDirection(sortType), "createDate");
+    }
+
+    private void validPagination(int page, int pageSize) {
         if (page < 0) {
             throw new IllegalArgumentException("Page number must be non-negative");
         }
@@ -130,14 +429,25 @@ public class PostServiceImpl implements PostService {
         if (pageSize <= 0) {
             throw new IllegalArgumentException("Page size must be positive");
         }
+    }
+
+    private Sort.Direction validCursorPaginationAndGetDirection(String sortType, int pageSize) {
+        if (sortType == null) {
+            throw new IllegalArgumentException("Sort type cannot be null");
+        }
+
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
 
-        Sort.Direction direction;
+        return getSortDirection(sortType);
+    }
+
+    private Sort.Direction getSortDirection(String sortType) {
         try {
-            direction = Sort.Direction.fromString(sortType);
+            return Sort.Direction.fromString(sortType);
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid sortType value! Must be 'DESC' or 'ASC");
         }
-
-        return Sort.by(direction, "createDate");
     }
 }
@@ -0,0 +1,7 @@
+package com.example.social_media_api.service;
+
+public interface PostViewService {
+    void recordView(Long postId);
+    long getPendingViews(Long postId);
+    void flushViews();
+}
@@ -0,0 +1,108 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.cache.PostCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class PostViewServiceImpl implements PostViewService {
+    // Счетчик, удаленный из pendingViews: просмотры в него больше не попадают
+    private static final long RETIRED = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostCache postCache;
+    private final int batchSize;
+
+    // Просмотры, еще не записанные в базу. Счетчик увеличивается через CAS, без блокировок
+    private final Map<Long, AtomicLong> pendingViews = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PostViewServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            PostCache postCache,
+            @Value("${post.views.batchSize:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postCache = postCache;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void recordView(Long postId) {
+        addViews(postId, 1);
+    }
+
+    @Override
+    public long getPendingViews(Long postId) {
+        AtomicLong views = pendingViews.get(postId);
+        return views == null ? 0 : Math.max(views.get(), 0);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${post.views.flushInterval:10000}")
+    @PreDestroy
+    public synchronized void flushViews() {
+        // Сортируем по id, чтобы узлы блокировали строки в одном порядке
+        Map<Long, Long> views = new TreeMap<>();
+
+        pendingViews.forEach((postId, counter) -> {
+            long count = counter.getAndSet(0);
+
+            if (count > 0) {
+                views.put(postId, count);
+            } else if (counter.compareAndSet(0, RETIRED)) {
+                // Счетчик без новых просмотров удаляется только после того, как в него стало нельзя добавить просмотр
+                pendingViews.remove(postId, counter);
+            }
+        });
+
+        if (views.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(views.size());
+        views.forEach((postId, count) -> rows.add(new Object[] { count, postId }));
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE posts SET views = views + ? WHERE id = ?", rows, batchSize,
+                    (statement, row) -> {
+                        statement.setLong(1, (Long) row[0]);
+                        statement.setLong(2, (Long) row[1]);
+                    });
+        } catch (RuntimeException e) {
+            // Возвращаем просмотры, чтобы записать их при следующей попытке
+            views.forEach(this::addViews);
+            throw e;
+        }
+
+        views.keySet().forEach(postCache::evict);
+    }
+
+    private void addViews(Long postId, long count) {
+        while (true) {
+            AtomicLong views = pendingViews.get(postId);
+            if (views == null) {
+                views = pendingViews.computeIfAbsent(postId, id -> new AtomicLong());
+            }
+
+            long current = views.get();
+            if (current == RETIRED) {
+                // Сброс удаляет счетчик сразу после пометки, помогаем ему и берем новый
+                pendingViews.remove(postId, views);
+            } else if (views.compareAndSet(current, current + count)) {
+                return;
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.social_media_api.service;
 
+import com.example.social_media_api.cache.FeedCache;
 import com.example.social_media_api.domain.dto.UserDto;
 import com.example.social_media_api.domain.entity.User;
 import com.example.social_media_api.domain.entity.UserSubscription;
 import com.example.social_media_api.repository.UserRepository;
 import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.TransactionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
@@ -16,11 +19,21 @@ import java.util.stream.Collectors;
 public class ProfileServiceImpl implements ProfileService {
     private final UserSubscriptionRepository userSubscriptionRepository;
     private final UserRepository userRepository;
+    private final TimelineService timelineService;
+    private final FeedCache feedCache;
+    private final FeedStreamService feedStreamService;
+    private final RankedFeedService rankedFeedService;
 
     @Autowired
-    public ProfileServiceImpl(UserSubscriptionRepository userSubscriptionRepository, UserRepository userRepository) {
+    public ProfileServiceImpl(UserSubscriptionRepository userSubscriptionRepository, UserRepository userRepository,
+                              TimelineService timelineService, FeedCache feedCache,
+                              FeedStreamService feedStreamService, RankedFeedService rankedFeedService) {
         this.userSubscriptionRepository = userSubscriptionRepository;
         this.userRepository = userRepository;
+        this.timelineService = timelineService;
+        this.feedCache = feedCache;
+        this.feedStreamService = feedStreamService;
+        this.rankedFeedService = rankedFeedService;
     }
 
     @Override
@@ -48,7 +61,9 @@ public class ProfileServiceImpl implements ProfileService {
     }
 
     @Override
+    @Transactional
     public void changeSubscription(User channel, User subscriber, Boolean subscriptionStatus) {
+        boolean subscribed = false;
 
         if (subscriptionStatus) {
             List<UserSubscription> channelSubscriptions = channel.getSubscribers().stream()
@@ -60,6 +75,7 @@ public class ProfileServiceImpl implements ProfileService {
             // Если подписка не существует, добавляем новую
             if (channelSubscriptions.isEmpty()) {
                 channel.getSubscribers().add(subscriberSubscription);
+                subscribed = true;
             }
 
             UserSubscription channelSubscription = userSubscriptionRepository.findByChannelAndSubscriber(subscriber, channel);
@@ -77,10 +93,24 @@ public class ProfileServiceImpl implements ProfileService {
         }
 
         userRepository.saveAll(List.of(channel, subscriber));
+
+        // Лента заполняется в той же транзакции, что и подписка: при откате не останется записей без подписки
+        if (subscribed) {
+            timelineService.addSubscription(channel, subscriber);
+        }
+
+        TransactionUtils.runAfterCommit(() -> {
+            feedCache.evict(subscriber.getId());
+            feedStreamService.refreshSubscriptions(subscriber.getId());
+            rankedFeedService.invalidate(subscriber.getId());
+            rankedFeedService.invalidate(channel.getId());
+        });
     }
 
     @Override
+    @Transactional
     public void changeSubscriberStatus(User subscriber, User channel, Boolean subscriberStatus) {
+        boolean subscribed = false;
 
         UserSubscription channelSubscription = userSubscriptionRepository.findByChannelAndSubscriber(channel, subscriber);
 
@@ -97,6 +127,7 @@ public class ProfileServiceImpl implements ProfileService {
                 UserSubscription subscription = new UserSubscription(subscriber, channel);
                 subscriber.getSubscribers().add(subscription);
                 subscription.setActive(true);
+                subscribed = true;
 
                 channel.getFriends().add(subscriber);
                 subscriber.getFriends().add(channel);
@@ -107,6 +138,17 @@ public class ProfileServiceImpl implements ProfileService {
         }
 
         userRepository.saveAll(List.of(channel, subscriber));
+
+        if (subscribed) {
+            timelineService.addSubscription(subscriber, channel);
+        }
+
+        TransactionUtils.runAfterCommit(() -> {
+            feedCache.evict(channel.getId());
+            feedStreamService.refreshSubscriptions(channel.getId());
+            rankedFeedService.invalidate(channel.getId());
+            rankedFeedService.invalidate(subscriber.getId());
+        });
     }
 
     private void unfollowAndStopBeingFriends(User channel, User subscriber) {
@@ -116,6 +158,10 @@ public class ProfileServiceImpl implements ProfileService {
 
         subscriptions.forEach(channel.getSubscribers()::remove);
 
+        if (!subscriptions.isEmpty()) {
+            timelineService.removeSubscription(channel, subscriber);
+        }
+
         channel.getFriends().remove(subscriber);
         subscriber.getFriends().remove(channel);
     }
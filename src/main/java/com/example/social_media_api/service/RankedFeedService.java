@@ -0,0 +1,13 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import org.springframework.data.domain.Page;
+
+import java.util.Collection;
+
+public interface RankedFeedService {
+    Page<PostDto> getRankedTimeline(Long subscriberId, int page, int pageSize);
+    void invalidate(Long userId);
+    void invalidateSubscribersOf(Long channelId);
+    void removePosts(Collection<Long> postIds);
+}
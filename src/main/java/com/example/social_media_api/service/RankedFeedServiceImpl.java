@@ -0,0 +1,216 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.FeedRanking;
+import com.example.social_media_api.repository.FeedRankingRepository;
+import com.example.social_media_api.repository.MessageRepository;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.repository.UserRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class RankedFeedServiceImpl implements RankedFeedService {
+    private final FeedRankingRepository feedRankingRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final MessageRepository messageRepository;
+    private final UserSubscriptionRepository userSubscriptionRepository;
+    private final TimelineService timelineService;
+    private final TransactionOperations transactionOperations;
+    private final int rankedPosts;
+    private final int batchSize;
+    private final double friendWeight;
+    private final double engagementWeight;
+    private final long engagementDays;
+    private final double decaySeconds;
+
+    // Пользователи, которые недавно читали ранжированную ленту. Значение - готов ли для них список
+    private final Cache<Long, Boolean> rankedUsers;
+    private final Set<Long> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> expiredUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RankedFeedServiceImpl(
+            FeedRankingRepository feedRankingRepository,
+            PostRepository postRepository,
+            UserRepository userRepository,
+            MessageRepository messageRepository,
+            UserSubscriptionRepository userSubscriptionRepository,
+            TimelineService timelineService,
+            TransactionOperations transactionOperations,
+            @Value("${feed.ranking.size:500}") int rankedPosts,
+            @Value("${feed.ranking.batchSize:500}") int batchSize,
+            @Value("${feed.ranking.maxUsers:100000}") long maxUsers,
+            @Value("${feed.ranking.userTtl:86400}") long userTtl,
+            @Value("${feed.ranking.friendWeight:2.0}") double friendWeight,
+            @Value("${feed.ranking.engagementWeight:0.5}") double engagementWeight,
+            @Value("${feed.ranking.engagementDays:30}") long engagementDays,
+            @Value("${feed.ranking.decaySeconds:43200}") double decaySeconds
+    ) {
+        this.feedRankingRepository = feedRankingRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.messageRepository = messageRepository;
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.timelineService = timelineService;
+        this.transactionOperations = transactionOperations;
+        this.rankedPosts = rankedPosts;
+        this.batchSize = batchSize;
+        this.friendWeight = friendWeight;
+        this.engagementWeight = engagementWeight;
+        this.engagementDays = engagementDays;
+        this.decaySeconds = decaySeconds;
+        this.rankedUsers = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofSeconds(userTtl))
+                .<Long, Boolean>removalListener((userId, ready, cause) -> {
+                    if (cause.wasEvicted()) {
+                        expiredUsers.add(userId);
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    public void initRankingIdGenerator() {
+        feedRankingRepository.createIdGenerator(FeedRanking.ID_ALLOCATION_SIZE);
+        feedRankingRepository.alignIdGenerator(FeedRanking.ID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public Page<PostDto> getRankedTimeline(Long subscriberId, int page, int pageSize) {
+        Boolean ready = rankedUsers.getIfPresent(subscriberId);
+        if (ready == null) {
+            rankedUsers.put(subscriberId, false);
+            expiredUsers.remove(subscriberId);
+            pendingUsers.add(subscriberId);
+        }
+
+        // Пока список не посчитан, отдаем хронологическую ленту
+        if (!Boolean.TRUE.equals(ready)) {
+            return timelineService.getTimeline(subscriberId,
+                    PageRequest.of(page, pageSize, Sort.by(Sort.Direction.DESC, "createDate")));
+        }
+
+        return feedRankingRepository.findPostsBySubscriber(subscriberId, PageRequest.of(page, pageSize));
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        TransactionUtils.runAfterCommit(() -> {
+            if (rankedUsers.getIfPresent(userId) != null) {
+                pendingUsers.add(userId);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateSubscribersOf(Long channelId) {
+        TransactionUtils.runAfterCommit(() -> {
+            if (rankedUsers.estimatedSize() == 0) {
+                return;
+            }
+
+            Map<Long, Boolean> users = rankedUsers.asMap();
+            userSubscriptionRepository.findSubscriberIdsByChannelId(channelId).stream()
+                    .filter(users::containsKey)
+                    .forEach(pendingUsers::add);
+        });
+    }
+
+    @Override
+    public void removePosts(Collection<Long> postIds) {
+        feedRankingRepository.deleteByPostIds(postIds);
+    }
+
+    @Scheduled(fixedDelayString = "${feed.ranking.interval:60000}")
+    public void rankPendingTimelines() {
+        Iterator<Long> expired = expiredUsers.iterator();
+        while (expired.hasNext()) {
+            Long userId = expired.next();
+            expired.remove();
+
+            if (rankedUsers.getIfPresent(userId) == null) {
+                transactionOperations.executeWithoutResult(status -> feedRankingRepository.deleteBySubscriberId(userId));
+            }
+        }
+
+        Iterator<Long> pending = pendingUsers.iterator();
+        for (int i = 0; i < batchSize && pending.hasNext(); i++) {
+            Long userId = pending.next();
+            pending.remove();
+
+            if (rankedUsers.getIfPresent(userId) != null) {
+                transactionOperations.executeWithoutResult(status -> rankTimeline(userId));
+                rankedUsers.asMap().computeIfPresent(userId, (id, ready) -> true);
+            }
+        }
+    }
+
+    void rankTimeline(Long userId) {
+        List<PostDto> posts = timelineService.getTimeline(userId, null, Sort.Direction.DESC, rankedPosts);
+        Set<Long> friendIds = new HashSet<>(userRepository.findFriendIds(userId));
+        Map<Long, Long> messageCounts = countMessagesByUser(userId);
+
+        List<FeedRanking> rankings = posts.stream()
+                .map(post -> new FeedRanking(userId, postRepository.getReferenceById(post.getId()),
+                        getScore(post, friendIds, messageCounts)))
+                .toList();
+
+        feedRankingRepository.deleteBySubscriberId(userId);
+        feedRankingRepository.saveAll(rankings);
+    }
+
+    // Логарифм веса плюс время в единицах затухания: порядок уже посчитанных постов со временем не меняется,
+    // поэтому пересчитывать ленту нужно только при новых постах или изменении связей пользователя
+    double getScore(PostDto post, Set<Long> friendIds, Map<Long, Long> messageCounts) {
+        Long authorId = post.getAuthor().getId();
+
+        double weight = 1;
+        if (friendIds.contains(authorId)) {
+            weight += friendWeight;
+        }
+        weight += engagementWeight * Math.log1p(messageCounts.getOrDefault(authorId, 0L));
+
+        return Math.log(weight) + post.getCreateDate().toEpochSecond(ZoneOffset.UTC) / decaySeconds;
+    }
+
+    private Map<Long, Long> countMessagesByUser(Long userId) {
+        LocalDateTime since = LocalDateTime.now().minusDays(engagementDays);
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : messageRepository.countMessagesByUserSince(userId, since)) {
+            Long senderId = (Long) row[0];
+            Long receiverId = (Long) row[1];
+            Long otherId = userId.equals(senderId) ? receiverId : senderId;
+
+            counts.merge(otherId, (Long) row[2], Long::sum);
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.utils.FeedCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineService {
+    Page<PostDto> getTimeline(Long subscriberId, Pageable pageable);
+    Slice<PostDto> getTimelineSlice(Long subscriberId, Pageable pageable);
+    List<PostDto> getTimeline(Long subscriberId, FeedCursor cursor, Sort.Direction direction, int limit);
+    void addPost(Post post);
+    void addPosts(List<Post> posts);
+    void removePosts(Collection<Long> postIds);
+    void addSubscription(User channel, User subscriber);
+    void removeSubscription(User channel, User subscriber);
+}
@@ -0,0 +1,335 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.cache.PostCache;
+import com.example.social_media_api.cache.PostSnapshot;
+import com.example.social_media_api.cache.RecentPostsCache;
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.FeedCursor;
+import com.example.social_media_api.utils.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class TimelineServiceImpl implements TimelineService {
+    private static final Comparator<PostDto> POST_ORDER = Comparator
+            .comparing(PostDto::getCreateDate)
+            .thenComparing(PostDto::getId);
+
+    private final FeedEntryRepository feedEntryRepository;
+    private final FeedPullAuthorRepository feedPullAuthorRepository;
+    private final PostRepository postRepository;
+    private final UserSubscriptionRepository userSubscriptionRepository;
+    private final RecentPostsCache recentPostsCache;
+    private final PostCache postCache;
+    private final long followerThreshold;
+    private final int backfillChannelLimit;
+    private final int maxMergedPosts;
+    private final Cache<Long, Long> followerCounts;
+    private final Cache<Long, List<Long>> subscriptions;
+
+    @Autowired
+    public TimelineServiceImpl(
+            FeedEntryRepository feedEntryRepository,
+            FeedPullAuthorRepository feedPullAuthorRepository,
+            PostRepository postRepository,
+            UserSubscriptionRepository userSubscriptionRepository,
+            RecentPostsCache recentPostsCache,
+            PostCache postCache,
+            @Value("${feed.fanout.followerThreshold:10000}") long followerThreshold,
+            @Value("${feed.fanout.maxAuthors:100000}") long maxAuthors,
+            @Value("${feed.fanout.followerCountTtl:300}") long followerCountTtl,
+            @Value("${feed.cache.maxUsers:10000}") long maxUsers,
+            @Value("${feed.rings.ttl:60}") long subscriptionsTtl,
+            @Value("${feed.backfill.channelLimit:1000}") int backfillChannelLimit,
+            @Value("${feed.fanout.maxMergedPosts:1000}") int maxMergedPosts
+    ) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.feedPullAuthorRepository = feedPullAuthorRepository;
+        this.postRepository = postRepository;
+        this.userSubscriptionRepository = userSubscriptionRepository;
+        this.recentPostsCache = recentPostsCache;
+        this.postCache = postCache;
+        this.followerThreshold = followerThreshold;
+        this.backfillChannelLimit = backfillChannelLimit;
+        this.maxMergedPosts = maxMergedPosts;
+        this.followerCounts = Caffeine.newBuilder()
+                .maximumSize(maxAuthors)
+                .expireAfterWrite(Duration.ofSeconds(followerCountTtl))
+                .build();
+        // Подписки, измененные на других узлах, видны в ленте из буферов не позже чем через ttl
+        this.subscriptions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(subscriptionsTtl))
+                .build();
+    }
+
+    @Override
+    public Page<PostDto> getTimeline(Long subscriberId, Pageable pageable) {
+        List<Long> pullAuthorIds = feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId);
+        if (pullAuthorIds.isEmpty()) {
+            return feedEntryRepository.findPostsBySubscriber(subscriberId, pageable);
+        }
+
+        int limit = getMergeLimit(pageable);
+        List<PostDto> posts = mergeHeads(subscriberId, pullAuthorIds, getDirection(pageable), limit);
+        // Записи pull-авторов, которые еще не удалил FeedPullConversionService, уже посчитаны вторым запросом
+        long total = feedEntryRepository.countBySubscriberIdExcludingAuthors(subscriberId, pullAuthorIds)
+                + postRepository.countByAuthorIds(pullAuthorIds);
+
+        return new PageImpl<>(getPageContent(posts, pageable), pageable, total);
+    }
+
+    @Override
+    public Slice<PostDto> getTimelineSlice(Long subscriberId, Pageable pageable) {
+        if (pageable.getPageNumber() == 0 && getDirection(pageable).isDescending()) {
+            List<PostDto> posts = getLatestPostsFromCache(subscriberId, null, pageable.getPageSize() + 1);
+
+            if (posts != null) {
+                boolean hasNext = posts.size() > pageable.getPageSize();
+                return new SliceImpl<>(getPageContent(posts, pageable), pageable, hasNext);
+            }
+        }
+
+        List<Long> pullAuthorIds = feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId);
+        if (pullAuthorIds.isEmpty()) {
+            return feedEntryRepository.findPostSliceBySubscriber(subscriberId, pageable);
+        }
+
+        int limit = getMergeLimit(pageable);
+        List<PostDto> posts = mergeHeads(subscriberId, pullAuthorIds, getDirection(pageable), limit + 1);
+
+        return new SliceImpl<>(getPageContent(posts, pageable), pageable, posts.size() > limit);
+    }
+
+    @Override
+    public List<PostDto> getTimeline(Long subscriberId, FeedCursor cursor, Sort.Direction direction, int limit) {
+        if (direction.isDescending()) {
+            List<PostDto> posts = getLatestPostsFromCache(subscriberId, cursor, limit);
+
+            if (posts != null) {
+                return posts;
+            }
+        }
+
+        List<PostDto> pushedPosts = getPushedPosts(subscriberId, cursor, direction, limit);
+
+        List<Long> pullAuthorIds = feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId);
+        if (pullAuthorIds.isEmpty()) {
+            return pushedPosts;
+        }
+
+        List<PostDto> pulledPosts = getPulledPosts(pullAuthorIds, cursor, direction, limit);
+
+        return merge(pushedPosts, pulledPosts, direction, limit);
+    }
+
+    @Override
+    @Transactional
+    public void addPost(Post post) {
+        addPosts(List.of(post));
+    }
+
+    @Override
+    @Transactional
+    public void addPosts(List<Post> posts) {
+        Map<Long, List<Post>> postsByAuthor = posts.stream()
+                .collect(Collectors.groupingBy(post -> post.getAuthor().getId()));
+
+        postsByAuthor.forEach((authorId, authorPosts) -> {
+            if (!isPushAuthor(authorId)) {
+                return;
+            }
+
+            for (Post post : authorPosts) {
+                feedEntryRepository.fanOutPost(post.getId(), authorId, post.getCreateDate());
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void removePosts(Collection<Long> postIds) {
+        feedEntryRepository.deleteByPostIds(postIds);
+    }
+
+    @Override
+    @Transactional
+    public void addSubscription(User channel, User subscriber) {
+        evictSubscriptions(subscriber.getId());
+
+        if (!feedPullAuthorRepository.existsById(channel.getId())) {
+            feedEntryRepository.backfillChannel(subscriber.getId(), channel.getId(), backfillChannelLimit);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeSubscription(User channel, User subscriber) {
+        evictSubscriptions(subscriber.getId());
+
+        if (!feedPullAuthorRepository.existsById(channel.getId())) {
+            feedEntryRepository.deleteBySubscriberAndChannel(subscriber.getId(), channel.getId());
+        }
+    }
+
+    private boolean isPushAuthor(Long authorId) {
+        if (feedPullAuthorRepository.existsById(authorId)) {
+            return false;
+        }
+
+        // Посты авторов с большим числом подписчиков не раскладываются по лентам, а читаются при запросе ленты.
+        // Порог нестрогий, поэтому число подписчиков берется из кеша и пересчитывается раз в followerCountTtl
+        long followers = followerCounts.get(authorId, userSubscriptionRepository::countSubscribersByChannelId);
+        if (followers > followerThreshold) {
+            // Уже разложенные посты удалит FeedPullConversionService, до этого дубли отсекаются при слиянии лент
+            feedPullAuthorRepository.markPullAuthor(authorId, LocalDateTime.now());
+            return false;
+        }
+
+        return true;
+    }
+
+    private List<PostDto> getLatestPostsFromCache(Long subscriberId, FeedCursor cursor, int limit) {
+        if (!recentPostsCache.isEnabled()) {
+            return null;
+        }
+
+        List<Long> channelIds = subscriptions.get(subscriberId, userSubscriptionRepository::findChannelIdsBySubscriberId);
+        List<Long> postIds = recentPostsCache.getLatestPostIds(channelIds, cursor, limit);
+        if (postIds == null) {
+            return null;
+        }
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, PostSnapshot> posts = postCache.getAll(postIds, ids -> postRepository.findPostDtosByIds(ids).stream()
+                .map(PostSnapshot::new)
+                .collect(Collectors.toList()));
+
+        // Пост мог быть удален на другом узле, в этом случае читаем ленту из базы
+        if (posts.size() != postIds.size()) {
+            return null;
+        }
+
+        return postIds.stream()
+                .map(id -> posts.get(id).toDto())
+                .collect(Collectors.toList());
+    }
+
+    private void evictSubscriptions(Long subscriberId) {
+        TransactionUtils.runAfterCommit(() -> subscriptions.invalidate(subscriberId));
+    }
+
+    // Для слияния из обоих источников читаются все посты до конца страницы, поэтому глубина страниц ограничена,
+    // дальше ленту можно листать только курсором
+    private int getMergeLimit(Pageable pageable) {
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        if (limit > maxMergedPosts) {
+            throw new IllegalArgumentException("Page is too deep, use the cursor to read the feed further");
+        }
+
+        return (int) limit;
+    }
+
+    private List<PostDto> mergeHeads(Long subscriberId, List<Long> pullAuthorIds, Sort.Direction direction, int limit) {
+        return merge(
+                getPushedPosts(subscriberId, null, direction, limit),
+                getPulledPosts(pullAuthorIds, null, direction, limit),
+                direction,
+                limit
+        );
+    }
+
+    private List<PostDto> getPushedPosts(Long subscriberId, FeedCursor cursor, Sort.Direction direction, int limit) {
+        if (cursor == null) {
+            Sort sort = Sort.by(direction, "createDate").and(Sort.by(direction, "post.id"));
+            return feedEntryRepository.findTimelineHead(subscriberId, PageRequest.of(0, limit, sort));
+        }
+
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (direction.isDescending()) {
+            return feedEntryRepository.findTimelineBefore(subscriberId, cursor.getCreateDate(), cursor.getPostId(), pageable);
+        }
+
+        return feedEntryRepository.findTimelineAfter(subscriberId, cursor.getCreateDate(), cursor.getPostId(), pageable);
+    }
+
+    private List<PostDto> getPulledPosts(List<Long> authorIds, FeedCursor cursor, Sort.Direction direction, int limit) {
+        if (cursor == null) {
+            Sort sort = Sort.by(direction, "createDate").and(Sort.by(direction, "id"));
+            return postRepository.findByAuthorIds(authorIds, PageRequest.of(0, limit, sort));
+        }
+
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (direction.isDescending()) {
+            return postRepository.findByAuthorIdsBefore(authorIds, cursor.getCreateDate(), cursor.getPostId(), pageable);
+        }
+
+        return postRepository.findByAuthorIdsAfter(authorIds, cursor.getCreateDate(), cursor.getPostId(), pageable);
+    }
+
+    private List<PostDto> merge(List<PostDto> first, List<PostDto> second, Sort.Direction direction, int limit) {
+        Comparator<PostDto> order = direction.isDescending() ? POST_ORDER.reversed() : POST_ORDER;
+        List<PostDto> result = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < first.size() || j < second.size())) {
+            int compare = i >= first.size() ? 1 : j >= second.size() ? -1 : order.compare(first.get(i), second.get(j));
+
+            if (compare == 0) {
+                // Пост автора, переведенного в pull-режим, еще не удален из feed_entries
+                j++;
+            }
+
+            if (compare <= 0) {
+                result.add(first.get(i++));
+            } else {
+                result.add(second.get(j++));
+            }
+        }
+
+        return result;
+    }
+
+    private List<PostDto> getPageContent(List<PostDto> posts, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), posts.size());
+        int to = Math.min(from + pageable.getPageSize(), posts.size());
+
+        return new ArrayList<>(posts.subList(from, to));
+    }
+
+    private Sort.Direction getDirection(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("createDate");
+        return order == null ? Sort.Direction.DESC : order.getDirection();
+    }
+}
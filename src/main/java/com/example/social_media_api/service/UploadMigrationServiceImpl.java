@@ -0,0 +1,100 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.exception.FileManagerException;
+import com.example.social_media_api.utils.UploadLayout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Переносит файлы из корня upload.path в каталоги UploadLayout, не останавливая приложение
+@Service
+public class UploadMigrationServiceImpl implements UploadMigrationService {
+    private final String uploadPath;
+    private final int batchSize;
+
+    // Новые файлы в корень не пишутся, поэтому после пустого прохода корень больше не просматривается
+    private volatile boolean finished;
+
+    @Autowired
+    public UploadMigrationServiceImpl(
+            @Value("${upload.path}") String uploadPath,
+            @Value("${upload.migration.batchSize:1000}") int batchSize
+    ) {
+        this.uploadPath = uploadPath;
+        this.batchSize = batchSize;
+    }
+
+    // За один запуск переносится не больше batchSize файлов, так что перенос не нагружает диск разом
+    @Override
+    @Scheduled(fixedDelayString = "${upload.migration.interval:1000}")
+    public synchronized int migrateFiles() {
+        Path root = Paths.get(uploadPath);
+        if (finished || !Files.isDirectory(root)) {
+            return 0;
+        }
+
+        List<Path> files = findLegacyFiles(root);
+        if (files.isEmpty()) {
+            finished = true;
+            return 0;
+        }
+
+        int moved = 0;
+        for (Path file : files) {
+            if (move(root, file)) {
+                moved++;
+            }
+        }
+
+        return moved;
+    }
+
+    private List<Path> findLegacyFiles(Path root) {
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+
+                // Временные файлы загрузки и создания копий переносить нельзя, их переименует записывающий поток
+                if (Files.isRegularFile(file) && !fileName.endsWith(".tmp") && UploadLayout.isShardable(fileName)) {
+                    files.add(file);
+                    if (files.size() == batchSize) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new FileManagerException("An error occurred while reading upload directory");
+        }
+
+        return files;
+    }
+
+    // Перенос атомарен: файл все время доступен либо в корне, либо в своем каталоге
+    private boolean move(Path root, Path file) {
+        Path target = UploadLayout.getPath(root, file.getFileName().toString());
+
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException e) {
+            // Файл удалили вместе с постом во время переноса
+            return false;
+        } catch (IOException e) {
+            throw new FileManagerException("An error occurred while moving file");
+        }
+    }
+}
@@ -14,6 +14,8 @@ public interface UserService {
 
     User findUserById(Long id) throws UserNotFoundException;
 
+    void checkUserExists(Long id) throws UserNotFoundException;
+
     User updateUser(User user);
 
     void checkEmailExists(String email) throws UserAlreadyExistsException;
@@ -54,6 +54,13 @@ public class UserServiceImpl implements UserService {
         return user;
     }
 
+    @Override
+    public void checkUserExists(Long id) throws UserNotFoundException {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("User not found");
+        }
+    }
+
     @Override
     public User updateUser(User user) {
         return userRepository.save(user);
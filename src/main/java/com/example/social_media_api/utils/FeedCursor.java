@@ -0,0 +1,78 @@
+package com.example.social_media_api.utils;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public final class FeedCursor implements Comparable<FeedCursor> {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createDate;
+    private final Long postId;
+
+    public FeedCursor(LocalDateTime createDate, Long postId) {
+        this.createDate = createDate;
+        this.postId = postId;
+    }
+
+    public static FeedCursor of(Post post) {
+        return new FeedCursor(post.getCreateDate(), post.getId());
+    }
+
+    public static FeedCursor of(PostDto post) {
+        return new FeedCursor(post.getCreateDate(), post.getId());
+    }
+
+    public static FeedCursor decode(String cursor) throws IllegalArgumentException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.lastIndexOf(SEPARATOR);
+
+            return new FeedCursor(
+                    LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Long.parseLong(value.substring(separatorIndex + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor value");
+        }
+    }
+
+    public String encode() {
+        String value = createDate + SEPARATOR + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int compareTo(FeedCursor other) {
+        int result = createDate.compareTo(other.createDate);
+        return result != 0 ? result : postId.compareTo(other.postId);
+    }
+
+    public LocalDateTime getCreateDate() {
+        return createDate;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedCursor that)) return false;
+
+        if (!createDate.equals(that.createDate)) return false;
+        return postId.equals(that.postId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = createDate.hashCode();
+        result = 31 * result + postId.hashCode();
+        return result;
+    }
+}
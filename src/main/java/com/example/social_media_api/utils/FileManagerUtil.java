@@ -1,21 +1,69 @@
 package com.example.social_media_api.utils;
 
+import com.example.social_media_api.domain.entity.ImageBlob;
 import com.example.social_media_api.exception.FileManagerException;
+import com.example.social_media_api.repository.ImageBlobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
 
+// Картинки хранятся по хешу содержимого: одинаковые загрузки ссылаются на один файл, число ссылок хранится в image_blobs.
+// Часть запроса к этому моменту уже целиком принята контейнером (во временный файл или в память), ее размер
+// ограничен только spring.servlet.multipart.max-file-size; проверки ниже выполняются над уже принятыми данными
 @Component
 public class FileManagerUtil {
-    @Value("${upload.path}")
-    private String uploadPath;
+    private static final String INVALID_FORMAT_MESSAGE = "Invalid image format. Only JPG, JPEG, and PNG formats are allowed";
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final byte[] JPEG_SIGNATURE = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+    private static final int BUFFER_SIZE = 64 * 1024;
 
+    private final String uploadPath;
+    private final long maxFileSize;
+    private final ImageBlobRepository imageBlobRepository;
+    private final TransactionOperations releaseTransaction;
+
+    @Autowired
+    public FileManagerUtil(
+            @Value("${upload.path}") String uploadPath,
+            @Value("${upload.maxFileSize:10MB}") DataSize maxFileSize,
+            ImageBlobRepository imageBlobRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this(uploadPath, maxFileSize.toBytes(), imageBlobRepository, newTransaction(transactionManager));
+    }
+
+    FileManagerUtil(String uploadPath, long maxFileSize, ImageBlobRepository imageBlobRepository,
+                    TransactionOperations releaseTransaction) {
+        this.uploadPath = uploadPath;
+        this.maxFileSize = maxFileSize;
+        this.imageBlobRepository = imageBlobRepository;
+        this.releaseTransaction = releaseTransaction;
+    }
+
+    @Transactional
     public String saveFileAndGetLink(MultipartFile image) throws FileManagerException, IllegalArgumentException {
         if (image == null || image.getOriginalFilename().isEmpty() || uploadPath == null) {
             return null;
@@ -25,34 +73,151 @@ public class FileManagerUtil {
             Path path = Paths.get(uploadPath);
             Files.createDirectories(path);
 
-            String uuidFile = UUID.randomUUID().toString();
             String originFileName = image.getOriginalFilename();
             String extension = originFileName.substring(originFileName.lastIndexOf(".")).toLowerCase();
 
             if (!extension.matches("\\.(jpg|jpeg|png)")) {
-                throw new IllegalArgumentException("Invalid image format. Only JPG, JPEG, and PNG formats are allowed");
+                throw new IllegalArgumentException(INVALID_FORMAT_MESSAGE);
             }
 
-            String resultFileName = uuidFile + extension;
-            Path filePath = Paths.get(uploadPath, resultFileName);
-            image.transferTo(Files.createFile(filePath));
+            // Размер принятой части известен, заведомо большой файл отклоняется без копирования
+            if (image.getSize() > maxFileSize) {
+                throw new MaxUploadSizeExceededException(maxFileSize);
+            }
 
-            return resultFileName;
+            return saveFile(image, path, extension);
         } catch (IOException e) {
             throw new FileManagerException("An error occurred while saving file");
         }
     }
 
+    // Файл удаляется после коммита и только когда на него не осталось ссылок
+    @Transactional
     public void deleteFile(String filename) throws FileManagerException {
-        try {
-            if (filename != null) {
-                Path filePath = Paths.get(uploadPath, filename);
-                if (Files.exists(filePath)) {
-                    Files.delete(filePath);
+        if (filename == null) {
+            return;
+        }
+
+        imageBlobRepository.removeReference(filename);
+        TransactionUtils.runAfterCommit(() -> releaseFile(filename));
+    }
+
+    private String saveFile(MultipartFile image, Path path, String extension) throws IOException {
+        try (InputStream inputStream = image.getInputStream()) {
+            // Подделка отклоняется по первым байтам, до создания файла в каталоге загрузок
+            byte[] header = inputStream.readNBytes(PNG_SIGNATURE.length);
+            if (!matchesSignature(header, extension)) {
+                throw new IllegalArgumentException(INVALID_FORMAT_MESSAGE);
+            }
+
+            Path tempPath = Files.createTempFile(path, "upload", ".tmp");
+            try {
+                String resultFileName = writeAndHash(header, inputStream, tempPath) + extension;
+
+                // Ссылка добавляется до проверки файла: строка заблокирована до коммита, и releaseFile не удалит файл
+                imageBlobRepository.addReference(resultFileName);
+                TransactionUtils.runAfterRollback(() -> releaseFile(resultFileName));
+
+                if (!UploadLayout.exists(path, resultFileName)) {
+                    Path filePath = UploadLayout.getPath(path, resultFileName);
+                    Files.createDirectories(filePath.getParent());
+                    Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
                 }
+
+                return resultFileName;
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    // Хеш и размер считаются при копировании принятой части во временный файл рядом с итоговым: содержимое
+    // читается один раз, а копирование прерывается, как только файл превысил допустимый размер
+    private String writeAndHash(byte[] header, InputStream inputStream, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(header);
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.wrap(header));
+
+            long size = header.length;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileSize) {
+                    throw new MaxUploadSizeExceededException(maxFileSize);
+                }
+
+                digest.update(buffer, 0, read);
+                writeFully(channel, ByteBuffer.wrap(buffer, 0, read));
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private boolean matchesSignature(byte[] header, String extension) {
+        byte[] signature = extension.equals(".png") ? PNG_SIGNATURE : JPEG_SIGNATURE;
+        if (header.length < signature.length) {
+            return false;
+        }
+
+        return Arrays.equals(header, 0, signature.length, signature, 0, signature.length);
+    }
+
+    // Файлы удаляются под блокировкой строки: загрузка того же содержимого дождется коммита и запишет файл заново
+    private void releaseFile(String filename) {
+        releaseTransaction.executeWithoutResult(status -> {
+            Optional<ImageBlob> blob = imageBlobRepository.findByNameForUpdate(filename);
+            if (blob.isPresent() && blob.get().getRefCount() > 0) {
+                return;
+            }
+
+            // У картинок, загруженных до появления image_blobs, строки нет, и ссылка на них всегда одна
+            blob.ifPresent(imageBlobRepository::delete);
+            deleteFiles(filename);
+        });
+    }
+
+    private void deleteFiles(String filename) throws FileManagerException {
+        Path path = Paths.get(uploadPath);
+
+        try {
+            deleteStoredFile(path, filename);
+
+            for (ImageVariant variant : ImageVariant.values()) {
+                deleteStoredFile(path, variant.getFileName(filename));
             }
         } catch (IOException e) {
             throw new FileManagerException("An error occurred while deleting file");
         }
     }
+
+    // Сначала корень, как в UploadLayout.find: файл, перенесенный между двумя удалениями, все равно будет удален
+    private void deleteStoredFile(Path path, String filename) throws IOException {
+        Files.deleteIfExists(UploadLayout.getLegacyPath(path, filename));
+        Files.deleteIfExists(UploadLayout.getPath(path, filename));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Освобождение выполняется после коммита или отката, когда транзакция вызывающего кода уже завершена
+    private static TransactionOperations newTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.social_media_api.utils;
+
+// Уменьшенные копии картинки поста, хранятся рядом с оригиналом под именем <sha256>_<suffix>.<ext>
+// (у картинок, загруженных до хранения по хешу, вместо хеша uuid)
+public enum ImageVariant {
+    THUMBNAIL("thumbnail", "thumb", 160),
+    FEED("feed", "feed", 640),
+    FULL("full", "full", 1600);
+
+    private final String name;
+    private final String suffix;
+    private final int maxSize;
+
+    ImageVariant(String name, String suffix, int maxSize) {
+        this.name = name;
+        this.suffix = suffix;
+        this.maxSize = maxSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String getFileName(String imageLink) {
+        int extensionIndex = imageLink.lastIndexOf('.');
+        if (extensionIndex < 0) {
+            return imageLink + "_" + suffix;
+        }
+
+        return imageLink.substring(0, extensionIndex) + "_" + suffix + imageLink.substring(extensionIndex);
+    }
+
+    // Возвращает имя оригинала для имени копии или null, если это не копия
+    public static String getOriginalFileName(String fileName) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        String name = extensionIndex < 0 ? fileName : fileName.substring(0, extensionIndex);
+        String extension = extensionIndex < 0 ? "" : fileName.substring(extensionIndex);
+
+        for (ImageVariant variant : values()) {
+            String ending = "_" + variant.suffix;
+            if (name.endsWith(ending) && name.length() > ending.length()) {
+                return name.substring(0, name.length() - ending.length()) + extension;
+            }
+        }
+
+        return null;
+    }
+}
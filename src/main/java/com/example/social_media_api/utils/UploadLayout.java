@@ -0,0 +1,61 @@
+package com.example.social_media_api.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Файлы раскладываются по каталогам из первых символов имени: <ab>/<cd>/<abcd...>.png,
+// так в одном каталоге не бывает больше нескольких тысяч файлов даже при миллионах картинок
+public final class UploadLayout {
+    private static final int SHARD_LEVELS = 2;
+    private static final int SHARD_WIDTH = 2;
+
+    private UploadLayout() {
+    }
+
+    public static Path getPath(Path root, String fileName) {
+        return root.resolve(getRelativePath(fileName));
+    }
+
+    public static String getRelativePath(String fileName) {
+        if (!isShardable(fileName)) {
+            return fileName;
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (int level = 0; level < SHARD_LEVELS; level++) {
+            path.append(fileName, level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH).append('/');
+        }
+
+        return path.append(fileName).toString();
+    }
+
+    // Файлы, загруженные до раскладки по каталогам, лежат в корне, пока их не перенесет UploadMigrationService
+    public static Path getLegacyPath(Path root, String fileName) {
+        return root.resolve(fileName);
+    }
+
+    // Перенос атомарен и идет только из корня в каталог, поэтому корень проверяется первым и файл не теряется между проверками
+    public static Path find(Path root, String fileName) {
+        Path legacyPath = getLegacyPath(root, fileName);
+        return Files.exists(legacyPath) ? legacyPath : getPath(root, fileName);
+    }
+
+    public static boolean exists(Path root, String fileName) {
+        return Files.exists(find(root, fileName));
+    }
+
+    public static boolean isShardable(String fileName) {
+        int prefixLength = SHARD_LEVELS * SHARD_WIDTH;
+        if (fileName.length() <= prefixLength || fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) {
+            return false;
+        }
+
+        for (int i = 0; i < prefixLength; i++) {
+            if (!Character.isLetterOrDigit(fileName.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FeedCacheTest {
+    @Mock
+    private UserSubscriptionRepository userSubscriptionRepository;
+    @Mock
+    private FeedPullAuthorRepository feedPullAuthorRepository;
+
+    private FeedCache feedCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedCache = new FeedCache(userSubscriptionRepository, feedPullAuthorRepository, 100, 2, 60);
+    }
+
+    @Test
+    void getLoadsAndCachesFirstPages() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<PostDto> page = new PageImpl<>(List.of(new PostDto()), pageable, 1);
+
+        assertEquals(page, feedCache.get(1L, pageable, () -> page));
+
+        assertEquals(page, feedCache.get(1L, pageable, () -> fail("Page must be cached")));
+        assertNotCached(2L, pageable);
+        assertNotCached(1L, PageRequest.of(1, 10));
+    }
+
+    @Test
+    void getDoesNotCacheDeepPages() {
+        Pageable pageable = PageRequest.of(2, 10);
+        Page<PostDto> page = new PageImpl<>(List.of(new PostDto()), pageable, 21);
+        AtomicInteger loads = new AtomicInteger();
+
+        feedCache.get(1L, pageable, () -> {
+            loads.incrementAndGet();
+            return page;
+        });
+        feedCache.get(1L, pageable, () -> {
+            loads.incrementAndGet();
+            return page;
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictRemovesUserPages() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache(1L, pageable);
+
+        feedCache.evict(1L);
+
+        assertNotCached(1L, pageable);
+    }
+
+    @Test
+    void getDoesNotCachePageLoadedBeforeEviction() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<PostDto> stalePage = new PageImpl<>(List.of(new PostDto()), pageable, 1);
+
+        when(userSubscriptionRepository.findSubscriberIdsByChannelId(5L)).thenReturn(List.of(1L));
+
+        // Новый пост закоммичен и ленты сброшены, пока страница читалась из базы
+        assertEquals(stalePage, feedCache.get(1L, pageable, () -> {
+            feedCache.evictSubscribersOf(5L);
+            return stalePage;
+        }));
+
+        assertNotCached(1L, pageable);
+    }
+
+    @Test
+    void evictSubscribersOfChannel() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache(1L, pageable);
+        cache(2L, pageable);
+
+        when(userSubscriptionRepository.findSubscriberIdsByChannelId(5L)).thenReturn(List.of(1L));
+
+        feedCache.evictSubscribersOf(5L);
+
+        assertNotCached(1L, pageable);
+        assertNotNull(feedCache.get(2L, pageable, () -> fail("Page must be cached")));
+        verify(userSubscriptionRepository, times(1)).findSubscriberIdsByChannelId(5L);
+    }
+
+    @Test
+    void evictSubscribersOfPullAuthorEvictsChangedPosts() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache(1L, pageable);
+
+        when(feedPullAuthorRepository.existsById(5L)).thenReturn(true);
+        when(userSubscriptionRepository.findSubscriberIdsByChannelId(5L)).thenReturn(List.of(1L));
+
+        feedCache.evictSubscribersOf(5L);
+
+        assertNotCached(1L, pageable);
+    }
+
+    @Test
+    void evictSubscribersOnNewPostOfPullAuthorKeepsPagesUntilTtl() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache(1L, pageable);
+
+        when(feedPullAuthorRepository.existsById(5L)).thenReturn(true);
+
+        feedCache.evictSubscribersOnNewPost(5L);
+
+        assertNotNull(feedCache.get(1L, pageable, () -> fail("Page must be cached")));
+        verify(userSubscriptionRepository, never()).findSubscriberIdsByChannelId(anyLong());
+    }
+
+    @Test
+    void evictSubscribersOnNewPostOfPushAuthorEvictsPages() {
+        Pageable pageable = PageRequest.of(0, 10);
+        cache(1L, pageable);
+
+        when(userSubscriptionRepository.findSubscriberIdsByChannelId(5L)).thenReturn(List.of(1L));
+
+        feedCache.evictSubscribersOnNewPost(5L);
+
+        assertNotCached(1L, pageable);
+    }
+
+    private void cache(Long userId, Pageable pageable) {
+        feedCache.get(userId, pageable, () -> new PageImpl<>(List.of(new PostDto()), pageable, 1));
+    }
+
+    private void assertNotCached(Long userId, Pageable pageable) {
+        Page<PostDto> loaded = new PageImpl<>(List.of(), pageable, 0);
+
+        assertSame(loaded, feedCache.get(userId, pageable, () -> loaded));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostCacheTest {
+    private PostCache postCache;
+
+    @BeforeEach
+    void setUp() {
+        postCache = new PostCache(100, 60);
+    }
+
+    @Test
+    void getLoadsPostOnlyOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<PostSnapshot> result = postCache.get(1L, id -> {
+                loads.incrementAndGet();
+                return Optional.of(createSnapshot(id, "title"));
+            });
+
+            assertEquals("title", result.orElseThrow().toDto().getTitle());
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getDoesNotCacheMissingPost() {
+        AtomicInteger loads = new AtomicInteger();
+
+        postCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<PostSnapshot> result = postCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertTrue(result.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictReloadsPost() {
+        postCache.get(1L, id -> Optional.of(createSnapshot(id, "old")));
+
+        postCache.evict(1L);
+        Optional<PostSnapshot> result = postCache.get(1L, id -> Optional.of(createSnapshot(id, "new")));
+
+        assertEquals("new", result.orElseThrow().toDto().getTitle());
+    }
+
+    @Test
+    void getDoesNotCachePostChangedDuringLoad() {
+        Optional<PostSnapshot> loaded = postCache.get(1L, id -> {
+            postCache.evict(id);
+            return Optional.of(createSnapshot(id, "old"));
+        });
+        Optional<PostSnapshot> result = postCache.get(1L, id -> Optional.of(createSnapshot(id, "new")));
+
+        assertEquals("old", loaded.orElseThrow().toDto().getTitle());
+        assertEquals("new", result.orElseThrow().toDto().getTitle());
+    }
+
+    @Test
+    void getAllLoadsOnlyMissingPosts() {
+        postCache.get(1L, id -> Optional.of(createSnapshot(id, "cached")));
+
+        Map<Long, PostSnapshot> result = postCache.getAll(List.of(1L, 2L, 3L), ids -> {
+            assertEquals(List.of(2L, 3L), ids);
+            return List.of(createSnapshot(2L, "loaded"));
+        });
+
+        assertEquals(2, result.size());
+        assertEquals("cached", result.get(1L).toDto().getTitle());
+        assertEquals("loaded", result.get(2L).toDto().getTitle());
+        assertEquals("loaded", postCache.get(2L, id -> Optional.empty()).orElseThrow().toDto().getTitle());
+    }
+
+    private PostSnapshot createSnapshot(Long id, String title) {
+        return new PostSnapshot(new PostDto(id, title, "content", null, 2L, "author", LocalDateTime.now(), 0, 0));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.social_media_api.cache;
+
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FeedCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RecentPostsCacheTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2023, 6, 1, 12, 0);
+
+    @Mock
+    private PostRepository postRepository;
+
+    private RecentPostsCache recentPostsCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        recentPostsCache = new RecentPostsCache(postRepository, true, 3, 100, 10, 60);
+    }
+
+    @Test
+    void getLatestPostIdsMergesAuthors() {
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(5L, 5), entry(3L, 3), entry(1L, 1)));
+        when(postRepository.findRecentPostsByAuthorId(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(entry(4L, 4), entry(2L, 2)));
+
+        List<Long> result = recentPostsCache.getLatestPostIds(List.of(1L, 2L), null, 4);
+
+        assertEquals(List.of(5L, 4L, 3L, 2L), result);
+    }
+
+    @Test
+    void getLatestPostIdsAfterCursor() {
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(5L, 5), entry(3L, 3), entry(1L, 1)));
+        when(postRepository.findRecentPostsByAuthorId(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(entry(4L, 4), entry(2L, 2)));
+
+        List<Long> result = recentPostsCache.getLatestPostIds(List.of(1L, 2L), entry(4L, 4), 10);
+
+        assertEquals(List.of(3L, 2L, 1L), result);
+    }
+
+    @Test
+    void getLatestPostIdsReturnsNullWhenTruncatedBufferIsExhausted() {
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entry(9L, 9), entry(8L, 8), entry(7L, 7), entry(6L, 6)));
+
+        assertEquals(List.of(9L, 8L), recentPostsCache.getLatestPostIds(List.of(1L), null, 2));
+        assertNull(recentPostsCache.getLatestPostIds(List.of(1L), null, 4));
+    }
+
+    @Test
+    void addAndRemoveUpdateLoadedBuffer() {
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(entry(1L, 1))));
+
+        recentPostsCache.getLatestPostIds(List.of(1L), null, 1);
+
+        Post post = new Post();
+        post.setId(2L);
+        post.setAuthor(author(1L));
+        post.setCreateDate(DATE.plusMinutes(2));
+
+        recentPostsCache.add(post);
+        assertEquals(List.of(2L, 1L), recentPostsCache.getLatestPostIds(List.of(1L), null, 5));
+
+        recentPostsCache.remove(post);
+        assertEquals(List.of(1L), recentPostsCache.getLatestPostIds(List.of(1L), null, 5));
+        verify(postRepository, times(1)).findRecentPostsByAuthorId(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void addDuringLoadIsNotLost() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class))).thenAnswer(invocation -> {
+            loading.countDown();
+            // Пост создается, пока загрузка уже прочитала базу
+            Thread.sleep(200);
+            return new ArrayList<>(List.of(entry(1L, 1)));
+        });
+
+        CompletableFuture<List<Long>> load = CompletableFuture.supplyAsync(
+                () -> recentPostsCache.getLatestPostIds(List.of(1L), null, 1));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        recentPostsCache.add(post(2L, 1L, 2));
+        load.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2L, 1L), recentPostsCache.getLatestPostIds(List.of(1L), null, 5));
+    }
+
+    @Test
+    void addIgnoresPostAlreadyLoaded() {
+        when(postRepository.findRecentPostsByAuthorId(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(entry(2L, 2), entry(1L, 1))));
+
+        recentPostsCache.getLatestPostIds(List.of(1L), null, 1);
+        recentPostsCache.add(post(2L, 1L, 2));
+
+        assertEquals(List.of(2L, 1L), recentPostsCache.getLatestPostIds(List.of(1L), null, 5));
+    }
+
+    @Test
+    void getLatestPostIdsWhenDisabled() {
+        recentPostsCache = new RecentPostsCache(postRepository, false, 3, 100, 10, 60);
+
+        assertNull(recentPostsCache.getLatestPostIds(List.of(1L), null, 2));
+        verify(postRepository, never()).findRecentPostsByAuthorId(anyLong(), any(Pageable.class));
+    }
+
+    private FeedCursor entry(Long postId, int minute) {
+        return new FeedCursor(DATE.plusMinutes(minute), postId);
+    }
+
+    private Post post(Long id, Long authorId, int minute) {
+        Post post = new Post();
+        post.setId(id);
+        post.setAuthor(author(authorId));
+        post.setCreateDate(DATE.plusMinutes(minute));
+        return post;
+    }
+
+    private User author(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
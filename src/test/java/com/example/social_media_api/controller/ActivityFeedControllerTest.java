@@ -1,8 +1,10 @@
 package com.example.social_media_api.controller;
 
+import com.example.social_media_api.domain.dto.CursorPageDto;
 import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.entity.User;
 import com.example.social_media_api.security.UserDetailsImpl;
+import com.example.social_media_api.service.FeedStreamService;
 import com.example.social_media_api.service.PostService;
 import com.example.social_media_api.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,12 +15,16 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 class ActivityFeedControllerTest {
@@ -29,6 +35,9 @@ class ActivityFeedControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private FeedStreamService feedStreamService;
+
     @InjectMocks
     private ActivityFeedController activityFeedController;
 
@@ -56,4 +65,117 @@ class ActivityFeedControllerTest {
         assertEquals(posts, responseEntity.getBody());
         verify(postService, times(1)).getPostsBySubscriber(user, sortType, page, pageSize);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetActivityFeedSlice() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+
+        String sortType = "DESC";
+        int page = 0;
+        int pageSize = 10;
+        Slice<PostDto> posts = new SliceImpl<>(Collections.singletonList(new PostDto()), PageRequest.of(page, pageSize), false);
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.getPostSliceBySubscriber(user, sortType, page, pageSize)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = activityFeedController.getActivityFeedSlice(authenticatedUser, sortType, page, pageSize);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(posts, responseEntity.getBody());
+        verify(postService, times(1)).getPostSliceBySubscriber(user, sortType, page, pageSize);
+        verify(postService, never()).getPostsBySubscriber(user, sortType, page, pageSize);
+    }
+
+    @Test
+    public void testGetRankedActivityFeed() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+
+        int page = 0;
+        int pageSize = 10;
+        Page<PostDto> posts = new PageImpl<>(Collections.singletonList(new PostDto()));
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.getRankedPostsBySubscriber(user, page, pageSize)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = activityFeedController.getRankedActivityFeed(authenticatedUser, page, pageSize);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(posts, responseEntity.getBody());
+        verify(postService, times(1)).getRankedPostsBySubscriber(user, page, pageSize);
+    }
+
+    @Test
+    public void testGetActivityFeedByCursor() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+
+        String sortType = "DESC";
+        String cursor = "cursor";
+        int pageSize = 10;
+        CursorPageDto<PostDto> posts = new CursorPageDto<>(Collections.singletonList(new PostDto()), "nextCursor");
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.getPostsBySubscriberAfterCursor(user, sortType, cursor, pageSize)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = activityFeedController.getActivityFeedByCursor(authenticatedUser, sortType, cursor, pageSize);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(posts, responseEntity.getBody());
+        verify(postService, times(1)).getPostsBySubscriberAfterCursor(user, sortType, cursor, pageSize);
+    }
+
+    @Test
+    public void testGetActivityFeedSince() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+
+        String since = "id:5";
+        int pageSize = 10;
+        CursorPageDto<PostDto> posts = new CursorPageDto<>(Collections.singletonList(new PostDto()), null);
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.getPostsBySubscriberSince(user, since, pageSize)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = activityFeedController.getActivityFeedSince(authenticatedUser, since, pageSize);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(posts, responseEntity.getBody());
+        verify(postService, times(1)).getPostsBySubscriberSince(user, since, pageSize);
+    }
+
+    @Test
+    public void testGetActivityFeedSinceWithoutNewPostsReturnsNotModified() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+
+        String since = "id:5";
+        int pageSize = 10;
+        CursorPageDto<PostDto> posts = new CursorPageDto<>(Collections.emptyList(), null);
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.getPostsBySubscriberSince(user, since, pageSize)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = activityFeedController.getActivityFeedSince(authenticatedUser, since, pageSize);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+    }
+
+    @Test
+    public void testStreamActivityFeed() {
+        UserDetailsImpl authenticatedUser = new UserDetailsImpl();
+        User user = new User();
+        SseEmitter emitter = new SseEmitter();
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(feedStreamService.subscribe(user)).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> responseEntity = activityFeedController.streamActivityFeed(authenticatedUser);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(emitter, responseEntity.getBody());
+        verify(feedStreamService, times(1)).subscribe(user);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.social_media_api.controller;
+
+import com.example.social_media_api.service.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class ImageControllerTest {
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path uploadPath;
+
+    @InjectMocks
+    private ImageController imageController;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    private Path image;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+
+        image = uploadPath.resolve("image.png");
+        Files.write(image, "0123456789".getBytes());
+        Files.setLastModifiedTime(image, FileTime.fromMillis(LAST_MODIFIED + 500));
+
+        request = new MockHttpServletRequest("GET", "/img/image.png");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void getImageReturnsWholeFileWithImmutableCacheHeaders() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("public, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(LAST_MODIFIED, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void getImageReturnsRequestedRange() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void getImageReturnsSuffixRange() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void getImageWithRangeOutsideFileReturnsNotSatisfiable() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getImageWithSeveralRangesReturnsWholeFile() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void getImageNotModifiedSinceReturnsNotModified() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getImageModifiedSinceReturnsFile() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED - 1000);
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void getImageUsesSendfileWhenServerSupportsIt() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(image.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void getImageOfMissingVariantReturnsOriginalWithoutLongCaching() throws IOException {
+        when(imageVariantService.findImage("image_thumb.png")).thenReturn(image);
+
+        imageController.getImage("image_thumb.png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void getImageForHeadRequestReturnsHeadersOnly() throws IOException {
+        when(imageVariantService.findImage("image.png")).thenReturn(image);
+        request.setMethod("HEAD");
+
+        imageController.getImage("image.png", request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getUnknownImageReturnsNotFound() throws IOException {
+        when(imageVariantService.findImage("missing.png")).thenReturn(null);
+
+        imageController.getImage("missing.png", request, response);
+
+        assertEquals(404, response.getStatus());
+    }
+}
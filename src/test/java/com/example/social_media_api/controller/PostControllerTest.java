@@ -12,15 +12,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verify;
 
@@ -60,18 +67,77 @@ class PostControllerTest {
 
     }
 
+    @Test
+    public void streamAllPosts() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> result = postController.streamAllPosts();
+        result.getBody().writeTo(outputStream);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+        verify(postService, times(1)).writeAllPosts(outputStream);
+    }
+
     @Test
     public void findPostById() {
         Long postId = 1L;
         PostDto post = new PostDto();
+        post.setId(postId);
+        post.setVersion(2);
 
         when(postService.findPostById(postId)).thenReturn(post);
 
-        ResponseEntity<?> responseEntity = postController.findPostById(postId);
+        ResponseEntity<?> responseEntity = postController.findPostById(postId, null);
 
         assertEquals(post, responseEntity.getBody());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("\"1-2\"", responseEntity.getHeaders().getETag());
         verify(postService, times(1)).findPostById(postId);
+        verify(postService, never()).getPostETag(postId);
+    }
+
+    @Test
+    public void findPostByIdWithMatchingETagReturnsNotModified() {
+        Long postId = 1L;
+
+        when(postService.getPostETag(postId)).thenReturn("\"1-2\"");
+
+        ResponseEntity<?> responseEntity = postController.findPostById(postId, "\"1-1\", W/\"1-2\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"1-2\"", responseEntity.getHeaders().getETag());
+        assertNull(responseEntity.getBody());
+        verify(postService, never()).findPostById(postId);
+    }
+
+    @Test
+    public void findPostByIdWithOutdatedETagReturnsPost() {
+        Long postId = 1L;
+        PostDto post = new PostDto();
+        post.setId(postId);
+        post.setVersion(2);
+
+        when(postService.getPostETag(postId)).thenReturn("\"1-2\"");
+        when(postService.findPostById(postId)).thenReturn(post);
+
+        ResponseEntity<?> responseEntity = postController.findPostById(postId, "\"1-1\"");
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(post, responseEntity.getBody());
+    }
+
+    @Test
+    public void searchPosts() {
+        Page<PostDto> posts = new PageImpl<>(List.of(new PostDto()));
+
+        when(postService.searchPosts("pasta", 0, 10)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = postController.searchPosts("pasta", 0, 10);
+
+        assertEquals(posts, responseEntity.getBody());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(postService, times(1)).searchPosts("pasta", 0, 10);
     }
 
     @Test
@@ -96,6 +162,21 @@ class PostControllerTest {
         verify(postService, times(1)).createPost(postDto, image, user);
     }
 
+    @Test
+    public void createPosts() {
+        List<PostDto> posts = List.of(new PostDto(), new PostDto());
+        User user = new User();
+
+        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(user);
+        when(postService.createPosts(posts, user)).thenReturn(posts);
+
+        ResponseEntity<?> responseEntity = postController.createPosts(posts, authenticatedUser);
+
+        assertEquals(posts, responseEntity.getBody());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(postService, times(1)).createPosts(posts, user);
+    }
+
     @Test
     public void updatePost() throws IOException, PostNotFoundException, AccessDeniedException {
         Long postId = 1L;
@@ -106,35 +187,43 @@ class PostControllerTest {
                 "test image".getBytes()
         );
         PostDto postDto = new PostDto();
-        User sameAuthor = new User();
 
-        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(sameAuthor);
-        when(postService.getAuthorFromPostByPostId(postId)).thenReturn(sameAuthor);
-        when(postService.updatePost(postId, postDto, image)).thenReturn(postDto);
+        when(authenticatedUser.getId()).thenReturn(1L);
+        when(authenticatedUser.isAdmin()).thenReturn(false);
+        when(postService.updatePost(postId, postDto, image, 1L, false)).thenReturn(postDto);
 
         ResponseEntity<?> responseEntity = postController.updatePost(postId, postDto, image, authenticatedUser);
 
         assertEquals(postDto, responseEntity.getBody());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        verify(userService, times(1)).getUserFromUserDetails(authenticatedUser);
-        verify(postService, times(1)).getAuthorFromPostByPostId(postId);
-        verify(postService, times(1)).updatePost(postId, postDto, image);
+        verify(userService, never()).getUserFromUserDetails(authenticatedUser);
+        verify(postService, times(1)).updatePost(postId, postDto, image, 1L, false);
     }
 
     @Test
     public void deletePost() throws PostNotFoundException, AccessDeniedException, IOException {
         Long postId = 1L;
-        User author = new User();
 
-        when(userService.getUserFromUserDetails(authenticatedUser)).thenReturn(author);
-        when(postService.getAuthorFromPostByPostId(postId)).thenReturn(author);
+        when(authenticatedUser.getId()).thenReturn(1L);
+        when(authenticatedUser.isAdmin()).thenReturn(true);
 
         ResponseEntity<?> responseEntity = postController.deletePost(postId, authenticatedUser);
 
         assertEquals("Post deleted successfully", responseEntity.getBody());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        verify(userService, times(1)).getUserFromUserDetails(authenticatedUser);
-        verify(postService, times(1)).deletePost(postId);
+        verify(userService, never()).getUserFromUserDetails(authenticatedUser);
+        verify(postService, times(1)).deletePost(postId, 1L, true);
+
+    }
+
+    @Test
+    public void deletePostOfAnotherAuthorAndThrowsAccessDeniedException() {
+        Long postId = 1L;
+
+        when(authenticatedUser.getId()).thenReturn(1L);
+        doThrow(new AccessDeniedException("Access denied. Only the author can modify or delete the post"))
+                .when(postService).deletePost(postId, 1L, false);
 
+        assertThrows(AccessDeniedException.class, () -> postController.deletePost(postId, authenticatedUser));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.example.social_media_api.controller;
+
+import com.example.social_media_api.domain.dto.CursorPageDto;
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.exception.UserNotFoundException;
+import com.example.social_media_api.service.PostService;
+import com.example.social_media_api.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class UserControllerTest {
+    @InjectMocks
+    private UserController userController;
+
+    @Mock
+    private PostService postService;
+
+    @Mock
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void getUserPosts() {
+        CursorPageDto<PostDto> posts = new CursorPageDto<>(new ArrayList<>(), "next");
+
+        when(postService.getPostsByAuthor(1L, "DESC", null, 10)).thenReturn(posts);
+
+        ResponseEntity<?> response = userController.getUserPosts(1L, "DESC", null, 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(posts, response.getBody());
+        verify(userService, times(1)).checkUserExists(1L);
+        verify(userService, never()).findUserById(any());
+        verify(postService, times(1)).getPostsByAuthor(1L, "DESC", null, 10);
+    }
+
+    @Test
+    public void getUserPostsOfUnknownUserAndThrowsUserNotFoundException() {
+        doThrow(new UserNotFoundException("User not found")).when(userService).checkUserExists(1L);
+
+        assertThrows(UserNotFoundException.class, () -> userController.getUserPosts(1L, "DESC", null, 10));
+
+        verify(postService, never()).getPostsByAuthor(any(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.social_media_api.repository;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class FeedEntryRepositoryTest {
+
+    @Mock
+    private FeedEntryRepository feedEntryRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testFindPostsBySubscriber() {
+        Long userId = 1L;
+        Pageable pageable = PageRequest.of(0, 10);
+        List<PostDto> posts = new ArrayList<>();
+        Page<PostDto> expectedPage = new PageImpl<>(posts);
+
+        when(feedEntryRepository.findPostsBySubscriber(userId, pageable)).thenReturn(expectedPage);
+
+        Page<PostDto> result = feedEntryRepository.findPostsBySubscriber(userId, pageable);
+
+        assertEquals(expectedPage, result);
+    }
+
+    @Test
+    public void testFanOutPost() {
+        Long postId = 1L;
+        Long authorId = 2L;
+        LocalDateTime createDate = LocalDateTime.now();
+
+        when(feedEntryRepository.fanOutPost(postId, authorId, createDate)).thenReturn(3);
+
+        int result = feedEntryRepository.fanOutPost(postId, authorId, createDate);
+
+        assertEquals(3, result);
+    }
+
+    @Test
+    public void testDeleteByPostIds() {
+        List<Long> postIds = List.of(1L);
+
+        feedEntryRepository.deleteByPostIds(postIds);
+
+        verify(feedEntryRepository, times(1)).deleteByPostIds(postIds);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.social_media_api.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostSearchIndexTest {
+    private PostSearchIndex postSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        postSearchIndex = new PostSearchIndex(2000);
+    }
+
+    @Test
+    void tokenizeSplitsWordsAndSkipsShortOnes() {
+        assertEquals(List.of("hello", "мир", "42"), PostSearchIndex.tokenize("Hello, МИР! a 42"));
+    }
+
+    @Test
+    void searchRanksMoreRelevantPostsFirst() {
+        postSearchIndex.index(1L, "Cooking", "Pasta with tomatoes and basil");
+        postSearchIndex.index(2L, "Pasta", "Pasta, pasta and more pasta");
+        postSearchIndex.index(3L, "Travel", "Trip to the mountains");
+
+        Page<Long> result = postSearchIndex.search("pasta", PageRequest.of(0, 10));
+
+        assertEquals(List.of(2L, 1L), result.getContent());
+        assertEquals(2, result.getTotalElements());
+    }
+
+    @Test
+    void searchMatchesAnyQueryTerm() {
+        postSearchIndex.index(1L, "Cooking", "Pasta recipe");
+        postSearchIndex.index(2L, "Travel", "Trip to the mountains");
+
+        Page<Long> result = postSearchIndex.search("pasta mountains", PageRequest.of(0, 10));
+
+        assertEquals(2, result.getTotalElements());
+    }
+
+    @Test
+    void searchReturnsRequestedPage() {
+        for (long id = 1; id <= 5; id++) {
+            postSearchIndex.index(id, "Post", "Same text");
+        }
+
+        Page<Long> result = postSearchIndex.search("text", PageRequest.of(1, 2));
+
+        assertEquals(List.of(3L, 2L), result.getContent());
+        assertEquals(5, result.getTotalElements());
+        assertTrue(postSearchIndex.search("text", PageRequest.of(3, 2)).getContent().isEmpty());
+    }
+
+    @Test
+    void indexReplacesPreviousVersionOfPost() {
+        postSearchIndex.index(1L, "Cooking", "Pasta recipe");
+
+        postSearchIndex.index(1L, "Cooking", "Soup recipe");
+
+        assertTrue(postSearchIndex.search("pasta", PageRequest.of(0, 10)).getContent().isEmpty());
+        assertEquals(List.of(1L), postSearchIndex.search("soup", PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void removeExcludesPostFromResults() {
+        for (long id = 1; id <= 2000; id++) {
+            postSearchIndex.index(id, "Post " + id, "Common text");
+        }
+
+        for (long id = 1; id <= 1500; id++) {
+            postSearchIndex.remove(id);
+        }
+
+        Page<Long> result = postSearchIndex.search("common", PageRequest.of(0, 1000));
+
+        assertEquals(500, result.getTotalElements());
+        assertTrue(result.getContent().stream().allMatch(id -> id > 1500));
+    }
+
+    @Test
+    void reindexingDoesNotGrowIndexAfterCompaction() {
+        postSearchIndex.index(1L, "Other", "Another text");
+
+        for (int i = 0; i < 10000; i++) {
+            postSearchIndex.index(2L, "Post", "Version " + i);
+        }
+
+        assertTrue(postSearchIndex.getCapacity() <= 2048);
+        assertEquals(List.of(2L), postSearchIndex.search("post", PageRequest.of(0, 10)).getContent());
+        assertEquals(List.of(2L, 1L), postSearchIndex.search("another 9999", PageRequest.of(0, 10)).getContent());
+        assertTrue(postSearchIndex.search("5000", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void searchReturnsTopPostsAcrossManyMatches() {
+        for (long id = 1; id <= 100; id++) {
+            postSearchIndex.index(id, id % 10 == 0 ? "Pasta" : "Post", "Pasta recipe");
+        }
+
+        Page<Long> result = postSearchIndex.search("pasta", PageRequest.of(0, 3));
+
+        assertEquals(List.of(100L, 90L, 80L), result.getContent());
+        assertEquals(100, result.getTotalElements());
+    }
+
+    @Test
+    void searchWithoutTermsReturnsEmptyPage() {
+        postSearchIndex.index(1L, "Cooking", "Pasta recipe");
+
+        assertTrue(postSearchIndex.search("a !", PageRequest.of(0, 10)).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.entity.FeedBackfill;
+import com.example.social_media_api.repository.FeedBackfillRepository;
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class FeedBackfillServiceImplTest {
+    @Mock
+    private FeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private FeedBackfillRepository feedBackfillRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    private FeedBackfillServiceImpl feedBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedBackfillService = new FeedBackfillServiceImpl(feedEntryRepository, feedBackfillRepository, postRepository,
+                TransactionOperations.withoutTransaction(), 2);
+    }
+
+    @Test
+    void backfillFeedsStartsOnEmptyFeedAndProcessesOneBatch() {
+        FeedBackfill backfill = new FeedBackfill();
+        backfill.setName("feed_entries");
+
+        when(feedEntryRepository.count()).thenReturn(0L);
+        when(feedBackfillRepository.findByNameForUpdate("feed_entries")).thenReturn(Optional.of(backfill));
+        when(postRepository.findBatchLastId(0, 2)).thenReturn(5L);
+        when(feedEntryRepository.backfillPosts(0, 5)).thenReturn(7);
+
+        assertEquals(7, feedBackfillService.backfillFeeds());
+
+        assertEquals(5, backfill.getLastPostId());
+        verify(feedBackfillRepository, times(1)).createIfAbsent("feed_entries");
+        verify(feedBackfillRepository, never()).delete(any());
+    }
+
+    @Test
+    void backfillFeedsContinuesFromSavedPositionAndFinishes() {
+        FeedBackfill backfill = new FeedBackfill();
+        backfill.setName("feed_entries");
+        backfill.setLastPostId(5);
+
+        when(feedEntryRepository.count()).thenReturn(10L);
+        when(feedBackfillRepository.findByNameForUpdate("feed_entries")).thenReturn(Optional.of(backfill));
+        when(postRepository.findBatchLastId(5, 2)).thenReturn(null);
+
+        assertEquals(0, feedBackfillService.backfillFeeds());
+        assertEquals(0, feedBackfillService.backfillFeeds());
+
+        verify(feedBackfillRepository, never()).createIfAbsent(any());
+        verify(feedBackfillRepository, times(1)).delete(backfill);
+        verify(feedBackfillRepository, times(1)).findByNameForUpdate("feed_entries");
+        verify(feedEntryRepository, never()).backfillPosts(anyLong(), anyLong());
+    }
+
+    @Test
+    void backfillFeedsOnFilledFeedDoesNothing() {
+        when(feedEntryRepository.count()).thenReturn(10L);
+        when(feedBackfillRepository.findByNameForUpdate("feed_entries")).thenReturn(Optional.empty());
+
+        assertEquals(0, feedBackfillService.backfillFeeds());
+        assertEquals(0, feedBackfillService.backfillFeeds());
+
+        verify(feedEntryRepository, times(1)).count();
+        verify(feedBackfillRepository, times(1)).findByNameForUpdate("feed_entries");
+        verify(postRepository, never()).findBatchLastId(anyLong(), anyInt());
+    }
+}
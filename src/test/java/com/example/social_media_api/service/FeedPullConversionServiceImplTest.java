@@ -0,0 +1,64 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class FeedPullConversionServiceImplTest {
+    @Mock
+    private FeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private FeedPullAuthorRepository feedPullAuthorRepository;
+
+    private FeedPullConversionServiceImpl feedPullConversionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feedPullConversionService = new FeedPullConversionServiceImpl(feedEntryRepository, feedPullAuthorRepository,
+                TransactionOperations.withoutTransaction(), 2);
+    }
+
+    @Test
+    void convertPullAuthorsDeletesOneBatchAndKeepsAuthorPending() {
+        when(feedPullAuthorRepository.findUnconvertedAuthorIds(PageRequest.of(0, 1))).thenReturn(List.of(7L));
+        when(feedEntryRepository.deleteByAuthorId(7L, 2)).thenReturn(2);
+
+        assertEquals(2, feedPullConversionService.convertPullAuthors());
+
+        verify(feedPullAuthorRepository, never()).markConverted(anyLong());
+    }
+
+    @Test
+    void convertPullAuthorsMarksAuthorAfterLastBatch() {
+        when(feedPullAuthorRepository.findUnconvertedAuthorIds(PageRequest.of(0, 1))).thenReturn(List.of(7L));
+        when(feedEntryRepository.deleteByAuthorId(7L, 2)).thenReturn(1);
+
+        assertEquals(1, feedPullConversionService.convertPullAuthors());
+
+        verify(feedPullAuthorRepository, times(1)).markConverted(7L);
+    }
+
+    @Test
+    void convertPullAuthorsWithoutPendingAuthorsDoesNothing() {
+        when(feedPullAuthorRepository.findUnconvertedAuthorIds(PageRequest.of(0, 1))).thenReturn(new ArrayList<>());
+
+        assertEquals(0, feedPullConversionService.convertPullAuthors());
+
+        verify(feedEntryRepository, never()).deleteByAuthorId(anyLong(), anyInt());
+    }
+}
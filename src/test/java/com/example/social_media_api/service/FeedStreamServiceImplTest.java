@@ -0,0 +1,156 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class FeedStreamServiceImplTest {
+    @Mock
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    private FeedStreamServiceImpl feedStreamService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        feedStreamService = spy(new FeedStreamServiceImpl(userSubscriptionRepository, objectMapper, 1000L,
+                Runnable::run));
+    }
+
+    @Test
+    void publishSendsPostToFollowers() throws IOException {
+        User follower = createUser(1L);
+        User stranger = createUser(2L);
+        User author = createUser(7L);
+
+        SseEmitter followerEmitter = mock(SseEmitter.class);
+        SseEmitter strangerEmitter = mock(SseEmitter.class);
+
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(follower.getId())).thenReturn(List.of(author.getId()));
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(stranger.getId())).thenReturn(List.of());
+        doReturn(followerEmitter, strangerEmitter).when(feedStreamService).createEmitter();
+
+        feedStreamService.subscribe(follower);
+        feedStreamService.subscribe(stranger);
+        feedStreamService.publish(createPost(author));
+
+        verify(followerEmitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(strangerEmitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void refreshSubscriptionsReloadsFollowedChannels() throws IOException {
+        User follower = createUser(1L);
+        User author = createUser(7L);
+
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(follower.getId()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(author.getId()));
+        doReturn(emitter).when(feedStreamService).createEmitter();
+
+        feedStreamService.subscribe(follower);
+        feedStreamService.refreshSubscriptions(follower.getId());
+        feedStreamService.publish(createPost(author));
+
+        verify(userSubscriptionRepository, times(2)).findChannelIdsBySubscriberId(follower.getId());
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void refreshSubscriptionsOfDisconnectedUserDoesNothing() {
+        feedStreamService.refreshSubscriptions(1L);
+
+        verify(userSubscriptionRepository, never()).findChannelIdsBySubscriberId(anyLong());
+    }
+
+    @Test
+    void publishDropsBrokenConnection() throws IOException {
+        User follower = createUser(1L);
+        User author = createUser(7L);
+
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(follower.getId())).thenReturn(List.of(author.getId()));
+        doReturn(emitter).when(feedStreamService).createEmitter();
+        doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        feedStreamService.subscribe(follower);
+        feedStreamService.publish(createPost(author));
+        feedStreamService.publish(createPost(author));
+
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void publishClosesChannelConnectionsWhenDispatchQueueIsFull() throws IOException {
+        feedStreamService = spy(new FeedStreamServiceImpl(userSubscriptionRepository, new ObjectMapper().registerModule(new JavaTimeModule()),
+                1000L, task -> { throw new RejectedExecutionException(); }));
+        User follower = createUser(1L);
+        User author = createUser(7L);
+
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(follower.getId())).thenReturn(List.of(author.getId()));
+        doReturn(emitter).when(feedStreamService).createEmitter();
+
+        feedStreamService.subscribe(follower);
+        feedStreamService.publish(createPost(author));
+        feedStreamService.publish(createPost(author));
+
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emitter, times(1)).complete();
+    }
+
+    @Test
+    void sendHeartbeatRunsOnDispatcher() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        feedStreamService = spy(new FeedStreamServiceImpl(userSubscriptionRepository, new ObjectMapper(), 1000L, tasks::add));
+        User follower = createUser(1L);
+
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(follower.getId())).thenReturn(List.of());
+        doReturn(emitter).when(feedStreamService).createEmitter();
+
+        feedStreamService.subscribe(follower);
+        feedStreamService.sendHeartbeat();
+
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    private User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private Post createPost(User author) {
+        Post post = new Post("Title", "Content", null, author, LocalDateTime.now());
+        post.setId(1L);
+        return post;
+    }
+}
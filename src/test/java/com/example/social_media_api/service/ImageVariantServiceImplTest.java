@@ -0,0 +1,162 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.utils.ImageVariant;
+import com.example.social_media_api.utils.UploadLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceImplTest {
+    @TempDir
+    Path uploadPath;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private ImageVariantServiceImpl imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantServiceImpl(uploadPath.toString(), 20_000_000, tasks::add);
+    }
+
+    @Test
+    void generateVariantsRunsInBackgroundAndScalesByLongestSide() throws IOException {
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "jpg", uploadPath.resolve("image.jpg").toFile());
+
+        imageVariantService.generateVariants("image.jpg");
+
+        assertFalse(Files.exists(stored("image_thumb.jpg")));
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+
+        assertSize(160, 80, stored("image_thumb.jpg"));
+        assertSize(640, 320, stored("image_feed.jpg"));
+        assertSize(1600, 800, stored("image_full.jpg"));
+    }
+
+    @Test
+    void createVariantsDoesNotUpscaleSmallImages() throws IOException {
+        Files.createDirectories(stored("image.png").getParent());
+        ImageIO.write(new BufferedImage(100, 300, BufferedImage.TYPE_INT_ARGB), "png", stored("image.png").toFile());
+
+        imageVariantService.createVariants("image.png");
+
+        assertSize(53, 160, stored("image_thumb.png"));
+        assertSize(100, 300, stored("image_feed.png"));
+        assertSize(100, 300, stored("image_full.png"));
+    }
+
+    @Test
+    void createVariantsSubsamplesLargeImagesKeepingProportions() throws IOException {
+        Files.createDirectories(stored("image.png").getParent());
+        ImageIO.write(new BufferedImage(6400, 100, BufferedImage.TYPE_BYTE_GRAY), "png", stored("image.png").toFile());
+
+        imageVariantService.createVariants("image.png");
+
+        assertSize(160, 3, stored("image_thumb.png"));
+        assertSize(1600, 25, stored("image_full.png"));
+    }
+
+    @Test
+    void createVariantsSkipsImagesAbovePixelLimit() throws IOException {
+        imageVariantService = new ImageVariantServiceImpl(uploadPath.toString(), 1_000_000, tasks::add);
+        Files.createDirectories(stored("image.png").getParent());
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_BYTE_GRAY), "png", stored("image.png").toFile());
+
+        imageVariantService.createVariants("image.png");
+
+        assertFalse(Files.exists(stored("image_thumb.png")));
+        assertEquals(stored("image.png"), imageVariantService.findImage("image_thumb.png"));
+    }
+
+    @Test
+    void createVariantsSkipsFilesThatAreNotImages() throws IOException {
+        Files.write(uploadPath.resolve("broken.png"), new byte[] { 1, 2, 3 });
+
+        imageVariantService.createVariants("broken.png");
+
+        try (var files = Files.list(uploadPath)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void createVariantsSkipsImagesThatAlreadyHaveVariants() throws IOException {
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png", uploadPath.resolve("image.png").toFile());
+        for (ImageVariant variant : ImageVariant.values()) {
+            Files.write(uploadPath.resolve(variant.getFileName("image.png")), new byte[] { 1 });
+        }
+
+        imageVariantService.createVariants("image.png");
+
+        assertEquals(1, Files.size(uploadPath.resolve("image_thumb.png")));
+    }
+
+    @Test
+    void findImageReturnsVariantOrOriginalUntilVariantIsCreated() throws IOException {
+        Files.createDirectories(stored("image.png").getParent());
+        Files.write(stored("image.png"), new byte[] { 1 });
+
+        assertEquals(stored("image.png"), imageVariantService.findImage("image.png"));
+        assertEquals(stored("image.png"), imageVariantService.findImage("image_thumb.png"));
+
+        Files.write(stored("image_thumb.png"), new byte[] { 1 });
+
+        assertEquals(stored("image_thumb.png"), imageVariantService.findImage("image_thumb.png"));
+    }
+
+    @Test
+    void findImageFindsFileNotYetMovedToShardDirectory() throws IOException {
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+
+        assertEquals(uploadPath.resolve("image.png"), imageVariantService.findImage("image_feed.png"));
+    }
+
+    @Test
+    void findImageRejectsMissingFilesAndPaths() throws IOException {
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+
+        assertNull(imageVariantService.findImage("missing.png"));
+        assertNull(imageVariantService.findImage("missing_thumb.png"));
+        assertNull(imageVariantService.findImage("../image.png"));
+        assertNull(imageVariantService.findImage("image.gif"));
+    }
+
+    @Test
+    void generateVariantsWithoutImageDoesNothing() {
+        imageVariantService.generateVariants(null);
+
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void getOriginalFileNameStripsVariantSuffix() {
+        assertEquals("image.png", ImageVariant.getOriginalFileName(ImageVariant.FEED.getFileName("image.png")));
+        assertEquals("image.png", ImageVariant.getOriginalFileName("image_thumb.png"));
+        assertNull(ImageVariant.getOriginalFileName("image.png"));
+        assertNull(ImageVariant.getOriginalFileName("_thumb.png"));
+    }
+
+    private Path stored(String fileName) {
+        return UploadLayout.getPath(uploadPath, fileName);
+    }
+
+    private void assertSize(int width, int height, Path path) throws IOException {
+        BufferedImage image = ImageIO.read(path.toFile());
+
+        assertNotNull(image);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.exception.FileManagerException;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FileManagerUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PostPurgeServiceImplTest {
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private RankedFeedService rankedFeedService;
+
+    @Mock
+    private FileManagerUtil fileManagerUtil;
+
+    private PostPurgeServiceImpl postPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        postPurgeService = new PostPurgeServiceImpl(postRepository, timelineService, rankedFeedService,
+                fileManagerUtil, TransactionOperations.withoutTransaction(), 2);
+    }
+
+    @Test
+    void purgeDeletedPostsRemovesOneBatchWithImages() {
+        List<Object[]> deletedPosts = List.of(
+                new Object[] { BigInteger.valueOf(1), "first.png" },
+                new Object[] { 3L, null }
+        );
+
+        when(postRepository.findDeletedPosts(2)).thenReturn(deletedPosts);
+        when(postRepository.purgeDeletedByIds(List.of(1L, 3L))).thenReturn(2);
+
+        assertEquals(2, postPurgeService.purgeDeletedPosts());
+
+        InOrder order = inOrder(fileManagerUtil, timelineService, rankedFeedService, postRepository);
+        order.verify(fileManagerUtil).deleteFile("first.png");
+        order.verify(timelineService).removePosts(List.of(1L, 3L));
+        order.verify(rankedFeedService).removePosts(List.of(1L, 3L));
+        order.verify(postRepository).purgeDeletedByIds(List.of(1L, 3L));
+    }
+
+    @Test
+    void purgeDeletedPostsSelectsBatchInsideTransaction() {
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        TransactionOperations transactionOperations = mock(TransactionOperations.class);
+        when(transactionOperations.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+        postPurgeService = new PostPurgeServiceImpl(postRepository, timelineService, rankedFeedService,
+                fileManagerUtil, transactionOperations, 2);
+
+        List<Object[]> deletedPosts = new ArrayList<>();
+        deletedPosts.add(new Object[] { 1L, "first.png" });
+
+        when(postRepository.findDeletedPosts(2)).thenAnswer(invocation -> {
+            assertTrue(inTransaction.get());
+            return deletedPosts;
+        });
+        when(postRepository.purgeDeletedByIds(List.of(1L))).thenReturn(1);
+
+        assertEquals(1, postPurgeService.purgeDeletedPosts());
+
+        verify(postRepository, times(1)).findDeletedPosts(2);
+        verify(fileManagerUtil, times(1)).deleteFile("first.png");
+    }
+
+    @Test
+    void purgeDeletedPostsWithoutDeletedPostsDoesNothing() {
+        when(postRepository.findDeletedPosts(2)).thenReturn(new ArrayList<>());
+
+        assertEquals(0, postPurgeService.purgeDeletedPosts());
+
+        verify(timelineService, never()).removePosts(any());
+        verify(postRepository, never()).purgeDeletedByIds(any());
+    }
+
+    @Test
+    void purgeDeletedPostsKeepsRowsWhenImageCannotBeDeleted() {
+        List<Object[]> deletedPosts = new ArrayList<>();
+        deletedPosts.add(new Object[] { 1L, "first.png" });
+
+        when(postRepository.findDeletedPosts(2)).thenReturn(deletedPosts);
+        doThrow(new FileManagerException("An error occurred while deleting file"))
+                .when(fileManagerUtil).deleteFile("first.png");
+
+        assertThrows(FileManagerException.class, () -> postPurgeService.purgeDeletedPosts());
+
+        verify(postRepository, never()).purgeDeletedByIds(any());
+    }
+}
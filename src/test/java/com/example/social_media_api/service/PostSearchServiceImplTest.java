@@ -0,0 +1,99 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.search.PostSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PostSearchServiceImplTest {
+    @Mock
+    private PostRepository postRepository;
+
+    private PostSearchIndex postSearchIndex;
+
+    private PostSearchServiceImpl postSearchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        postSearchIndex = new PostSearchIndex(2000);
+        postSearchService = new PostSearchServiceImpl(postSearchIndex, postRepository);
+    }
+
+    @Test
+    void searchLoadsFoundPostsInRankOrder() {
+        Pageable pageable = PageRequest.of(0, 10);
+        PostDto first = createPostDto(1L, "Pasta", "Pasta, pasta and more pasta");
+        PostDto second = createPostDto(2L, "Cooking", "Pasta with basil");
+
+        postSearchIndex.index(first.getId(), first.getTitle(), first.getContent());
+        postSearchIndex.index(second.getId(), second.getTitle(), second.getContent());
+        when(postRepository.findPostDtosByIds(List.of(1L, 2L))).thenReturn(List.of(second, first));
+
+        Page<PostDto> result = postSearchService.search("pasta", pageable);
+
+        assertEquals(List.of(first, second), result.getContent());
+        assertEquals(2, result.getTotalElements());
+    }
+
+    @Test
+    void searchSkipsPostsDeletedAfterSearch() {
+        postSearchIndex.index(1L, "Pasta", "Pasta recipe");
+        when(postRepository.findPostDtosByIds(List.of(1L))).thenReturn(List.of());
+
+        Page<PostDto> result = postSearchService.search("pasta", PageRequest.of(0, 10));
+
+        assertTrue(result.getContent().isEmpty());
+    }
+
+    @Test
+    void searchWithoutResultsDoesNotQueryPosts() {
+        Page<PostDto> result = postSearchService.search("pasta", PageRequest.of(0, 10));
+
+        assertTrue(result.isEmpty());
+        verify(postRepository, never()).findPostDtosByIds(any());
+    }
+
+    @Test
+    void indexPostAndRemovePostUpdateIndex() {
+        Post post = new Post("Pasta", "Pasta recipe", null, new User(), LocalDateTime.now());
+        post.setId(1L);
+
+        postSearchService.indexPost(post);
+        assertEquals(List.of(1L), postSearchIndex.search("pasta", PageRequest.of(0, 10)).getContent());
+
+        postSearchService.removePost(post);
+        assertTrue(postSearchIndex.search("pasta", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void buildIndexIndexesAllPosts() {
+        when(postRepository.streamAllPostDtos()).thenReturn(Stream.of(
+                createPostDto(1L, "Pasta", "Pasta recipe"),
+                createPostDto(2L, "Travel", "Trip to the mountains")
+        ));
+
+        postSearchService.buildIndex();
+
+        assertEquals(List.of(2L), postSearchIndex.search("mountains", PageRequest.of(0, 10)).getContent());
+    }
+
+    private PostDto createPostDto(Long id, String title, String content) {
+        return new PostDto(id, title, content, null, 1L, "author", LocalDateTime.now(), 0, 0);
+    }
+}
@@ -1,27 +1,50 @@
 package com.example.social_media_api.service;
 
+import com.example.social_media_api.cache.FeedCache;
+import com.example.social_media_api.cache.PostCache;
+import com.example.social_media_api.cache.RecentPostsCache;
+import com.example.social_media_api.domain.dto.CursorPageDto;
 import com.example.social_media_api.domain.dto.PostDto;
 import com.example.social_media_api.domain.dto.UserDto;
 import com.example.social_media_api.domain.entity.Post;
-import com.example.social_media_api.domain.entity.Role;
 import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.exception.AccessDeniedException;
 import com.example.social_media_api.exception.PostNotFoundException;
+import com.example.social_media_api.repository.ImageBlobRepository;
 import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.utils.FeedCursor;
 import com.example.social_media_api.utils.FileManagerUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.*;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -38,6 +61,36 @@ class PostServiceImplTest {
     @Mock
     private FileManagerUtil fileManagerUtil;
 
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private FeedCache feedCache;
+
+    @Spy
+    private PostCache postCache = new PostCache(100, 60);
+
+    @Mock
+    private RecentPostsCache recentPostsCache;
+
+    @Mock
+    private FeedStreamService feedStreamService;
+
+    @Mock
+    private RankedFeedService rankedFeedService;
+
+    @Mock
+    private PostSearchService postSearchService;
+
+    @Mock
+    private PostViewService postViewService;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -55,12 +108,32 @@ class PostServiceImplTest {
         List<Post> posts = new ArrayList<>(Arrays.asList(first, second));
         List<PostDto> expected = posts.stream().map(PostDto::new).toList();
 
-        when(postRepository.findAll()).thenReturn(posts);
+        when(postRepository.findAllPostDtos()).thenReturn(expected);
 
         List<PostDto> result = postService.findAllPosts();
 
         assertEquals(expected, result);
-        verify(postRepository, times(1)).findAll();
+        verify(postRepository, times(1)).findAllPostDtos();
+        verify(postRepository, never()).findAll();
+    }
+
+    @Test
+    void writeAllPostsWritesOneLinePerPostFromProjection() throws IOException {
+        List<PostDto> posts = new ArrayList<>();
+        for (long i = 1; i <= 1001; i++) {
+            posts.add(new PostDto(i, "title", "content", null, 1L, "author", LocalDateTime.of(2023, 6, 1, 12, 0), 0, 0));
+        }
+
+        when(postRepository.streamAllPostDtos()).thenReturn(posts.stream());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        postService.writeAllPosts(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1001, lines.length);
+        assertEquals(posts.get(0), objectMapper.readValue(lines[0], PostDto.class));
+        assertEquals("author", objectMapper.readValue(lines[1000], PostDto.class).getAuthor().getName());
+        verify(postRepository, never()).findAll();
     }
 
     @Test
@@ -83,15 +156,33 @@ class PostServiceImplTest {
 
         Sort sort = Sort.by(Sort.Direction.ASC, "createDate");
         Pageable pageable = PageRequest.of(page, pageSize, sort);
-        Page<Post> postsPage = new PageImpl<>(posts, pageable, posts.size());
-        Page<PostDto> expected = postsPage.map(PostDto::new);
+        Page<PostDto> expected = new PageImpl<>(posts.stream().map(PostDto::new).toList(), pageable, posts.size());
 
-        when(postRepository.findPostsBySubscribedUsersSortedByDate(user.getId(), pageable)).thenReturn(postsPage);
+        when(timelineService.getTimeline(user.getId(), pageable)).thenReturn(expected);
+        when(feedCache.get(eq(user.getId()), eq(pageable), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Page<PostDto>>>getArgument(2).get());
 
         Page<PostDto> resultPage = postService.getPostsBySubscriber(user, sortType, page, pageSize);
 
         assertEquals(expected, resultPage);
-        verify(postRepository, times(1)).findPostsBySubscribedUsersSortedByDate(user.getId(), pageable);
+        verify(timelineService, times(1)).getTimeline(user.getId(), pageable);
+        verify(feedCache, times(1)).get(eq(user.getId()), eq(pageable), any());
+    }
+
+    @Test
+    void getPostsBySubscriberFromCache() {
+        User user = new User();
+        user.setId(1L);
+
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createDate"));
+        Page<PostDto> cachedPage = new PageImpl<>(List.of(new PostDto()), pageable, 1);
+
+        when(feedCache.get(eq(user.getId()), eq(pageable), any())).thenReturn(cachedPage);
+
+        Page<PostDto> resultPage = postService.getPostsBySubscriber(user, "DESC", 0, 10);
+
+        assertEquals(cachedPage, resultPage);
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -108,7 +199,7 @@ class PostServiceImplTest {
         );
 
         assertEquals("Sort type cannot be null", exception.getMessage());
-        verify(postRepository, never()).findPostsBySubscribedUsersSortedByDate(anyLong(), any(Pageable.class));
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -125,7 +216,7 @@ class PostServiceImplTest {
         );
 
         assertEquals("Invalid sortType value! Must be 'DESC' or 'ASC", exception.getMessage());
-        verify(postRepository, never()).findPostsBySubscribedUsersSortedByDate(anyLong(), any(Pageable.class));
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -142,7 +233,7 @@ class PostServiceImplTest {
         );
 
         assertEquals("Page number must be non-negative", exception.getMessage());
-        verify(postRepository, never()).findPostsBySubscribedUsersSortedByDate(anyLong(), any(Pageable.class));
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -159,7 +250,276 @@ class PostServiceImplTest {
         );
 
         assertEquals("Page size must be positive", exception.getMessage());
-        verify(postRepository, never()).findPostsBySubscribedUsersSortedByDate(anyLong(), any(Pageable.class));
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getPostSliceBySubscriberWithValidParams() {
+        Post post = new Post();
+        post.setId(1L);
+        post.setAuthor(new User());
+
+        User user = new User();
+        user.setId(1L);
+
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createDate"));
+        Slice<PostDto> postsSlice = new SliceImpl<>(List.of(new PostDto(post)), pageable, true);
+
+        when(timelineService.getTimelineSlice(user.getId(), pageable)).thenReturn(postsSlice);
+
+        Slice<PostDto> result = postService.getPostSliceBySubscriber(user, "DESC", 0, 1);
+
+        assertEquals(postsSlice, result);
+        assertTrue(result.hasNext());
+        verify(timelineService, times(1)).getTimelineSlice(user.getId(), pageable);
+        verify(timelineService, never()).getTimeline(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getPostSliceBySubscriberWithInvalidPageAndThrowsIllegalArgumentException() {
+        User user = new User();
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.getPostSliceBySubscriber(user, "DESC", -1, 10)
+        );
+
+        assertEquals("Page number must be non-negative", exception.getMessage());
+        verify(timelineService, never()).getTimelineSlice(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getRankedPostsBySubscriber() {
+        User user = new User();
+        user.setId(1L);
+
+        Post post = new Post();
+        post.setId(1L);
+        post.setAuthor(new User());
+
+        Page<PostDto> posts = new PageImpl<>(List.of(new PostDto(post)), PageRequest.of(0, 10), 1);
+
+        when(rankedFeedService.getRankedTimeline(user.getId(), 0, 10)).thenReturn(posts);
+
+        Page<PostDto> result = postService.getRankedPostsBySubscriber(user, 0, 10);
+
+        assertEquals(List.of(new PostDto(post)), result.getContent());
+        verify(rankedFeedService, times(1)).getRankedTimeline(user.getId(), 0, 10);
+    }
+
+    @Test
+    void getRankedPostsBySubscriberWithInvalidPageAndThrowsIllegalArgumentException() {
+        User user = new User();
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.getRankedPostsBySubscriber(user, -1, 10)
+        );
+
+        assertEquals("Page number must be non-negative", exception.getMessage());
+        verify(rankedFeedService, never()).getRankedTimeline(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchPosts() {
+        Page<PostDto> expected = new PageImpl<>(List.of(new PostDto()));
+
+        when(postSearchService.search("pasta", PageRequest.of(1, 10))).thenReturn(expected);
+
+        Page<PostDto> result = postService.searchPosts("pasta", 1, 10);
+
+        assertEquals(expected, result);
+        verify(postSearchService, times(1)).search("pasta", PageRequest.of(1, 10));
+    }
+
+    @Test
+    void searchPostsWithEmptyQueryAndThrowsIllegalArgumentException() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.searchPosts(" ", 0, 10)
+        );
+
+        assertEquals("Query cannot be empty", exception.getMessage());
+        verify(postSearchService, never()).search(any(), any());
+    }
+
+    @Test
+    void getPostsBySubscriberAfterCursorWithoutCursorReturnsNextCursor() {
+        User user = new User();
+        user.setId(1L);
+
+        List<PostDto> posts = new ArrayList<>();
+        for (long i = 3; i > 0; i--) {
+            Post post = new Post();
+            post.setId(i);
+            post.setAuthor(new User());
+            post.setCreateDate(LocalDateTime.of(2023, 6, 1, 12, 0).plusMinutes(i));
+            posts.add(new PostDto(post));
+        }
+
+        when(timelineService.getTimeline(user.getId(), null, Sort.Direction.DESC, 3)).thenReturn(posts);
+
+        CursorPageDto<PostDto> result = postService.getPostsBySubscriberAfterCursor(user, "DESC", null, 2);
+
+        assertEquals(posts.subList(0, 2), result.getContent());
+        assertEquals(FeedCursor.of(posts.get(1)), FeedCursor.decode(result.getNextCursor()));
+        verify(timelineService, times(1)).getTimeline(user.getId(), null, Sort.Direction.DESC, 3);
+    }
+
+    @Test
+    void getPostsBySubscriberAfterCursorOnLastPageReturnsNullCursor() {
+        User user = new User();
+        user.setId(1L);
+
+        Post post = new Post();
+        post.setId(1L);
+        post.setAuthor(new User());
+        post.setCreateDate(LocalDateTime.now());
+
+        FeedCursor cursor = new FeedCursor(LocalDateTime.now(), 5L);
+
+        when(timelineService.getTimeline(user.getId(), cursor, Sort.Direction.ASC, 3)).thenReturn(List.of(new PostDto(post)));
+
+        CursorPageDto<PostDto> result = postService.getPostsBySubscriberAfterCursor(user, "ASC", cursor.encode(), 2);
+
+        assertEquals(List.of(new PostDto(post)), result.getContent());
+        assertNull(result.getNextCursor());
+        verify(timelineService, times(1)).getTimeline(user.getId(), cursor, Sort.Direction.ASC, 3);
+    }
+
+    @Test
+    void getPostsByAuthorWithoutCursorReadsFirstPageAndReturnsNextCursor() {
+        User author = new User();
+        author.setId(1L);
+
+        List<PostDto> posts = new ArrayList<>();
+        for (long i = 3; i > 0; i--) {
+            Post post = new Post();
+            post.setId(i);
+            post.setAuthor(author);
+            post.setCreateDate(LocalDateTime.of(2023, 6, 1, 12, 0).plusMinutes(i));
+            posts.add(new PostDto(post));
+        }
+
+        Sort sort = Sort.by(Sort.Direction.DESC, "createDate").and(Sort.by(Sort.Direction.DESC, "id"));
+        when(postRepository.findByAuthorId(author.getId(), PageRequest.of(0, 3, sort))).thenReturn(posts);
+
+        CursorPageDto<PostDto> result = postService.getPostsByAuthor(author.getId(), "DESC", null, 2);
+
+        assertEquals(posts.subList(0, 2), result.getContent());
+        assertEquals(FeedCursor.of(posts.get(1)), FeedCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void getPostsByAuthorWithCursorReadsPostsAfterCursor() {
+        User author = new User();
+        author.setId(1L);
+
+        Post post = new Post();
+        post.setId(7L);
+        post.setAuthor(author);
+        post.setCreateDate(LocalDateTime.now());
+
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2023, 6, 1, 12, 0), 5L);
+
+        when(postRepository.findByAuthorIdAfter(author.getId(), cursor.getCreateDate(), cursor.getPostId(), PageRequest.of(0, 3)))
+                .thenReturn(List.of(new PostDto(post)));
+
+        CursorPageDto<PostDto> result = postService.getPostsByAuthor(author.getId(), "ASC", cursor.encode(), 2);
+
+        assertEquals(List.of(new PostDto(post)), result.getContent());
+        assertNull(result.getNextCursor());
+        verify(postRepository, never()).findByAuthorIdBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    void getPostsBySubscriberAfterCursorWithInvalidCursorAndThrowsIllegalArgumentException() {
+        User user = new User();
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.getPostsBySubscriberAfterCursor(user, "DESC", "invalid", 10)
+        );
+
+        assertEquals("Invalid cursor value", exception.getMessage());
+        verify(timelineService, never()).getTimeline(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getPostsBySubscriberSinceWithPostIdStartsAfterThatPost() {
+        User user = new User();
+        user.setId(1L);
+
+        Post sincePost = new Post();
+        sincePost.setId(5L);
+        sincePost.setAuthor(new User());
+        sincePost.setCreateDate(LocalDateTime.of(2023, 6, 1, 12, 0));
+
+        Post newPost = new Post();
+        newPost.setId(6L);
+        newPost.setAuthor(new User());
+        newPost.setCreateDate(LocalDateTime.of(2023, 6, 1, 12, 5));
+
+        FeedCursor cursor = FeedCursor.of(sincePost);
+
+        when(postRepository.findPostDtoById(5L)).thenReturn(Optional.of(new PostDto(sincePost)));
+        when(timelineService.getTimeline(user.getId(), cursor, Sort.Direction.ASC, 11))
+                .thenReturn(List.of(new PostDto(newPost)));
+
+        CursorPageDto<PostDto> result = postService.getPostsBySubscriberSince(user, "id:5", 10);
+
+        assertEquals(List.of(new PostDto(newPost)), result.getContent());
+        assertNull(result.getNextCursor());
+        verify(timelineService, times(1)).getTimeline(user.getId(), cursor, Sort.Direction.ASC, 11);
+    }
+
+    @Test
+    void getPostsBySubscriberSinceWithDateSkipsPostsOfThatDate() {
+        User user = new User();
+        user.setId(1L);
+
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2023, 6, 1, 12, 0, 30), Long.MAX_VALUE);
+
+        when(timelineService.getTimeline(user.getId(), cursor, Sort.Direction.ASC, 11)).thenReturn(List.of());
+
+        CursorPageDto<PostDto> result = postService.getPostsBySubscriberSince(user, "2023-06-01 12:00:30", 10);
+
+        assertTrue(result.getContent().isEmpty());
+        verify(timelineService, times(1)).getTimeline(user.getId(), cursor, Sort.Direction.ASC, 11);
+    }
+
+    @Test
+    void getPostsBySubscriberSinceWithInvalidValueAndThrowsIllegalArgumentException() {
+        User user = new User();
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.getPostsBySubscriberSince(user, "yesterday", 10)
+        );
+
+        assertEquals("Invalid since value", exception.getMessage());
+        verify(timelineService, never()).getTimeline(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getPostsBySubscriberSinceWithBareNumberAndThrowsIllegalArgumentException() {
+        User user = new User();
+
+        assertThrows(IllegalArgumentException.class, () -> postService.getPostsBySubscriberSince(user, "20230601", 10));
+        assertThrows(IllegalArgumentException.class, () -> postService.getPostsBySubscriberSince(user, "id:abc", 10));
+
+        verify(postRepository, never()).findPostDtoById(anyLong());
+        verify(timelineService, never()).getTimeline(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getPostsBySubscriberSinceWithUnknownPostAndThrowsPostNotFoundException() {
+        User user = new User();
+
+        when(postRepository.findPostDtoById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(PostNotFoundException.class, () -> postService.getPostsBySubscriberSince(user, "id:5", 10));
+        verify(timelineService, never()).getTimeline(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -172,19 +532,73 @@ class PostServiceImplTest {
 
         PostDto expectedPostDto = new PostDto(post);
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(expectedPostDto));
 
         PostDto result = postService.findPostById(postId);
 
         assertEquals(expectedPostDto, result);
-        verify(postRepository, times(1)).findById(postId);
+        verify(postRepository, times(1)).findPostDtoById(postId);
+        verify(postRepository, never()).findById(postId);
+    }
+
+    @Test
+    void findPostByIdRecordsViewAndAddsPendingViews() {
+        Long postId = 1L;
+
+        Post post = new Post();
+        post.setId(postId);
+        post.setAuthor(new User());
+        post.setViews(10);
+
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(post)));
+        when(postViewService.getPendingViews(postId)).thenReturn(3L);
+
+        PostDto result = postService.findPostById(postId);
+
+        assertEquals(13, result.getViews());
+        verify(postViewService, times(1)).recordView(postId);
+    }
+
+    @Test
+    void getPostETagUsesIdAndVersionWithoutRecordingView() {
+        Long postId = 1L;
+
+        Post post = new Post();
+        post.setId(postId);
+        post.setAuthor(new User());
+        post.setVersion(3);
+
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(post)));
+
+        assertEquals("\"1-3\"", postService.getPostETag(postId));
+        verify(postViewService, never()).recordView(postId);
+    }
+
+    @Test
+    void findPostByIdReadsRepeatedLookupsFromCache() {
+        Long postId = 1L;
+
+        Post post = new Post();
+        post.setId(postId);
+        post.setTitle("Title");
+        post.setAuthor(new User());
+
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(post)));
+
+        PostDto first = postService.findPostById(postId);
+        first.setTitle("Changed by caller");
+        PostDto second = postService.findPostById(postId);
+
+        assertEquals("Title", second.getTitle());
+        assertNotSame(first, second);
+        verify(postRepository, times(1)).findPostDtoById(postId);
     }
 
     @Test
     void findPostByIdWidthInvalidIdAndThrowsPostNotFoundException() {
         Long postId = -1L;
 
-        when(postRepository.findById(postId)).thenReturn(Optional.empty());
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.empty());
 
         assertThrows(
                 PostNotFoundException.class,
@@ -192,7 +606,7 @@ class PostServiceImplTest {
                 "Post not found"
         );
 
-        verify(postRepository, times(1)).findById(postId);
+        verify(postRepository, times(1)).findPostDtoById(postId);
     }
 
     @Test
@@ -217,6 +631,94 @@ class PostServiceImplTest {
         assertEquals(expected, result);
         verify(fileManagerUtil, times(1)).saveFileAndGetLink(image);
         verify(postRepository, times(1)).save(post);
+        verify(timelineService, times(1)).addPost(post);
+        verify(recentPostsCache, times(1)).add(post);
+        verify(feedCache, times(1)).evictSubscribersOnNewPost(author.getId());
+        verify(rankedFeedService, times(1)).invalidateSubscribersOf(author.getId());
+        verify(postSearchService, times(1)).indexPost(post);
+        verify(feedStreamService, times(1)).publish(post);
+        verify(imageVariantService, times(1)).generateVariants(null);
+    }
+
+    @Test
+    void createPostWithImageGeneratesImageVariants() {
+        User author = new User();
+        author.setId(1L);
+
+        PostDto postDto = new PostDto();
+        postDto.setTitle("Title");
+        postDto.setContent("Content");
+
+        MultipartFile image = new MockMultipartFile("image.png", "image.png", "image/png", new byte[] { 1 });
+
+        when(fileManagerUtil.saveFileAndGetLink(image)).thenReturn("image.png");
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PostDto result = postService.createPost(postDto, image, author);
+
+        assertEquals("image_thumb.png", result.getImageVariants().get("thumbnail"));
+        assertEquals("image_feed.png", result.getImageVariants().get("feed"));
+        assertEquals("image_full.png", result.getImageVariants().get("full"));
+        verify(imageVariantService, times(1)).generateVariants("image.png");
+    }
+
+    @Test
+    void createPostsSavesAllPostsAtOnce() {
+        User author = new User();
+        author.setId(1L);
+
+        List<PostDto> posts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PostDto post = new PostDto();
+            post.setTitle("Title " + i);
+            post.setContent("Content " + i);
+            posts.add(post);
+        }
+
+        when(postRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Post> saved = invocation.getArgument(0);
+            long id = 1;
+            for (Post post : saved) {
+                post.setId(id++);
+            }
+            return saved;
+        });
+
+        List<PostDto> result = postService.createPosts(posts, author);
+
+        assertEquals(3, result.size());
+        assertEquals("Title 2", result.get(2).getTitle());
+        assertEquals(author.getId(), result.get(0).getAuthor().getId());
+        verify(postRepository, times(1)).saveAll(anyList());
+        verify(postRepository, never()).save(any(Post.class));
+        verify(timelineService, times(1)).addPosts(anyList());
+        verify(recentPostsCache, times(3)).add(any(Post.class));
+        verify(postSearchService, times(3)).indexPost(any(Post.class));
+        verify(feedStreamService, times(3)).publish(any(Post.class));
+        verify(feedCache, times(1)).evictSubscribersOnNewPost(author.getId());
+        verify(rankedFeedService, times(1)).invalidateSubscribersOf(author.getId());
+    }
+
+    @Test
+    void createPostsWithEmptyTitleAndThrowsIllegalArgumentException() {
+        PostDto post = new PostDto();
+        post.setTitle(" ");
+        post.setContent("Content");
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> postService.createPosts(List.of(post), new User())
+        );
+
+        assertEquals("Title can not be empty", exception.getMessage());
+        verify(postRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createPostsWithEmptyListAndThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> postService.createPosts(List.of(), new User()));
+
+        verify(postRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -241,6 +743,8 @@ class PostServiceImplTest {
         assertEquals("Invalid image format. Only JPG, JPEG, and PNG formats are allowed", exception.getMessage());
         verify(fileManagerUtil, times(1)).saveFileAndGetLink(invalidImage);
         verify(postRepository, never()).save(any(Post.class));
+        verify(timelineService, never()).addPost(any(Post.class));
+        verify(feedStreamService, never()).publish(any(Post.class));
     }
 
     @Test
@@ -250,11 +754,8 @@ class PostServiceImplTest {
         author.setId(1L);
 
         PostDto postDto = new PostDto();
-        postDto.setId(postId);
-        postDto.setTitle("Title");
-        postDto.setContent("Content");
-        postDto.setAuthor(new UserDto(author));
-        postDto.setCreateDate(LocalDateTime.now());
+        postDto.setTitle("New title");
+        postDto.setContent("New content");
 
         MultipartFile image = new MockMultipartFile(
                 "test.png",
@@ -262,23 +763,162 @@ class PostServiceImplTest {
                 "image/png",
                 Files.readAllBytes(Paths.get("src/test/resources/test.png")));
 
-        Post postFromDb = new Post();
+        Post postFromDb = new Post("Title", "Content", "old.png", author, LocalDateTime.now());
         postFromDb.setId(postId);
-        postFromDb.setTitle("New title");
-        postFromDb.setContent("New content");
-        postFromDb.setAuthor(author);
+        Post updatedPost = new Post("New title", "New content", "new.png", author, postFromDb.getCreateDate());
+        updatedPost.setId(postId);
+        updatedPost.setVersion(1);
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(postFromDb));
-        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(updatedPost)));
+        when(postRepository.findImageLinkForUpdate(postId)).thenReturn(Optional.of("old.png"));
+        when(fileManagerUtil.saveFileAndGetLink(image)).thenReturn("new.png");
+        when(postRepository.updateByIdAndAuthor(postId, author.getId(), false, "New title", "New content", "new.png"))
+                .thenReturn(1);
 
-        PostDto result = postService.updatePost(postId, postDto, image);
+        PostDto result = postService.updatePost(postId, postDto, image, author.getId(), false);
 
-        PostDto expectedPostDto = new PostDto(postFromDb);
+        assertEquals(new PostDto(updatedPost), result);
+        verify(postRepository, never()).findById(postId);
+        verify(postRepository, never()).save(any(Post.class));
+        verify(fileManagerUtil, times(1)).deleteFile("old.png");
+        verify(imageVariantService, times(1)).generateVariants("new.png");
+        verify(postCache, times(1)).evict(postId);
+        verify(postSearchService, times(1)).indexPost(argThat(post ->
+                post.getId().equals(postId) && post.getTitle().equals("New title")));
+        verify(feedCache, times(1)).evictSubscribersOf(author.getId());
+    }
 
-        assertEquals(expectedPostDto, result);
-        verify(fileManagerUtil, times(1)).saveFileAndGetLink(image);
-        verify(postRepository, times(1)).findById(postId);
-        verify(postRepository, times(1)).save(any(Post.class));
+    @Test
+    void updatePostWithNewImageReleasesOldImageInsideTransaction(@TempDir Path uploadPath) {
+        ImageBlobRepository imageBlobRepository = mock(ImageBlobRepository.class);
+        FileManagerUtil realFileManagerUtil = new FileManagerUtil(uploadPath.toString(), DataSize.ofMegabytes(1),
+                imageBlobRepository, mock(PlatformTransactionManager.class));
+        PostServiceImpl service = new PostServiceImpl(postRepository, realFileManagerUtil, timelineService, feedCache,
+                postCache, recentPostsCache, feedStreamService, rankedFeedService, postSearchService, postViewService,
+                imageVariantService, objectMapper);
+
+        User author = new User();
+        author.setId(1L);
+        Post post = new Post("Title", "Content", "old.png", author, LocalDateTime.now());
+        post.setId(1L);
+
+        PostDto postDto = new PostDto();
+        postDto.setTitle("Title");
+        postDto.setContent("Content");
+
+        MultipartFile image = new MockMultipartFile("test.png", "test.png", "image/png",
+                new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3 });
+
+        when(postRepository.findPostDtoById(1L)).thenReturn(Optional.of(new PostDto(post)));
+        when(postRepository.findImageLinkForUpdate(1L)).thenReturn(Optional.of("old.png"));
+        when(postRepository.updateByIdAndAuthor(eq(1L), eq(1L), eq(false), any(), any(), any())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.updatePost(1L, postDto, image, 1L, false);
+
+            // Счетчик уменьшен до коммита, в транзакции обновления поста
+            verify(imageBlobRepository, times(1)).removeReference("old.png");
+            verify(imageBlobRepository, never()).findByNameForUpdate(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            verify(imageBlobRepository, times(1)).findByNameForUpdate("old.png");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentImageReplacementsReleaseEachReplacedImageOnce() throws Exception {
+        User author = new User();
+        author.setId(1L);
+        Post post = new Post("Title", "Content", "a.png", author, LocalDateTime.now());
+        post.setId(1L);
+
+        // Строка поста: блокировка берется при чтении ссылки и снимается после обновления, как в транзакции
+        ReentrantLock rowLock = new ReentrantLock();
+        AtomicReference<String> imageLink = new AtomicReference<>("a.png");
+
+        // Обе транзакции видят в кеше старую ссылку
+        when(postRepository.findPostDtoById(1L)).thenReturn(Optional.of(new PostDto(post)));
+        postService.findPostById(1L);
+
+        when(postRepository.findImageLinkForUpdate(1L)).thenAnswer(invocation -> {
+            rowLock.lock();
+            return Optional.of(imageLink.get());
+        });
+        when(postRepository.updateByIdAndAuthor(eq(1L), eq(1L), eq(false), any(), any(), any())).thenAnswer(invocation -> {
+            imageLink.set(invocation.getArgument(5));
+            rowLock.unlock();
+            return 1;
+        });
+
+        MultipartFile firstImage = new MockMultipartFile("b.png", "b.png", "image/png", new byte[] { 1 });
+        MultipartFile secondImage = new MockMultipartFile("c.png", "c.png", "image/png", new byte[] { 2 });
+        when(fileManagerUtil.saveFileAndGetLink(firstImage)).thenReturn("b.png");
+        when(fileManagerUtil.saveFileAndGetLink(secondImage)).thenReturn("c.png");
+
+        PostDto postDto = new PostDto();
+        postDto.setTitle("Title");
+        postDto.setContent("Content");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<PostDto> first = executor.submit(() -> postService.updatePost(1L, postDto, firstImage, 1L, false));
+            Future<PostDto> second = executor.submit(() -> postService.updatePost(1L, postDto, secondImage, 1L, false));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Каждая ссылка освобождена один раз: исходная картинка и картинка, замененная второй транзакцией
+        verify(fileManagerUtil, times(1)).deleteFile("a.png");
+        verify(fileManagerUtil, times(2)).deleteFile(anyString());
+        verify(fileManagerUtil, never()).deleteFile(imageLink.get());
+    }
+
+    @Test
+    void updatePostWithoutImageRunsSingleConditionalUpdate() {
+        Long postId = 1L;
+        User author = new User();
+        author.setId(1L);
+
+        PostDto postDto = new PostDto();
+        postDto.setTitle("New title");
+        postDto.setContent("New content");
+
+        Post updatedPost = new Post("New title", "New content", null, author, LocalDateTime.now());
+        updatedPost.setId(postId);
+
+        when(postRepository.updateByIdAndAuthor(postId, author.getId(), false, "New title", "New content", null))
+                .thenReturn(1);
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(updatedPost)));
+
+        postService.updatePost(postId, postDto, null, author.getId(), false);
+
+        verify(postRepository, times(1)).findPostDtoById(postId);
+        verify(postRepository, never()).existsById(postId);
+        verify(fileManagerUtil, never()).deleteFile(any());
+    }
+
+    @Test
+    void updatePostOfAnotherAuthorAndThrowsAccessDeniedException() {
+        Long postId = 1L;
+
+        PostDto postDto = new PostDto();
+        postDto.setTitle("New title");
+        postDto.setContent("New content");
+
+        when(postRepository.updateByIdAndAuthor(postId, 2L, false, "New title", "New content", null)).thenReturn(0);
+        when(postRepository.existsById(postId)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> postService.updatePost(postId, postDto, null, 2L, false));
+
+        verify(postRepository, never()).findPostDtoById(postId);
+        verify(postCache, never()).evict(postId);
+        verify(postSearchService, never()).indexPost(any(Post.class));
     }
 
     @Test
@@ -288,24 +928,24 @@ class PostServiceImplTest {
         PostDto postDto = new PostDto();
         postDto.setTitle("Updated Title");
         postDto.setContent("Updated Content");
-        postDto.setAuthor(new UserDto(new User()));
 
-        when(postRepository.findById(postId)).thenReturn(Optional.empty());
+        when(postRepository.updateByIdAndAuthor(postId, 1L, false, "Updated Title", "Updated Content", null))
+                .thenReturn(0);
+        when(postRepository.existsById(postId)).thenReturn(false);
 
         PostNotFoundException exception = assertThrows(
                 PostNotFoundException.class,
-                () -> postService.updatePost(postId, postDto, null)
+                () -> postService.updatePost(postId, postDto, null, 1L, false)
         );
 
         assertEquals("Post not found", exception.getMessage());
-        verify(fileManagerUtil, never()).saveFileAndGetLink(null);
-        verify(postRepository, times(1)).findById(postId);
         verify(postRepository, never()).save(any(Post.class));
     }
 
     @Test
     void updatePostWithInvalidImageFormatAndThrowsIllegalArgumentException() throws IOException {
         User author = new User();
+        author.setId(1L);
 
         Long postId = 1L;
         PostDto postDto = new PostDto();
@@ -314,25 +954,25 @@ class PostServiceImplTest {
         postDto.setContent("Content");
 
         Post postFromDb = new Post();
+        postFromDb.setId(postId);
         postFromDb.setAuthor(author);
 
         MultipartFile invalidImage = new MockMultipartFile("test.gif", "test.gif", "image/gif",
                 Files.readAllBytes(Paths.get("src/test/resources/test.gif")));
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(postFromDb));
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(postFromDb)));
         when(fileManagerUtil.saveFileAndGetLink(invalidImage))
                 .thenThrow(new IllegalArgumentException("Invalid image format. Only JPG, JPEG, and PNG formats are allowed"));
 
 
         IllegalArgumentException exception = assertThrows(
                 IllegalArgumentException.class,
-                () -> postService.updatePost(postId, postDto, invalidImage)
+                () -> postService.updatePost(postId, postDto, invalidImage, author.getId(), false)
         );
 
         assertEquals("Invalid image format. Only JPG, JPEG, and PNG formats are allowed", exception.getMessage());
         verify(fileManagerUtil, times(1)).saveFileAndGetLink(invalidImage);
-        verify(postRepository, times(1)).findById(postId);
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).updateByIdAndAuthor(any(), any(), anyBoolean(), any(), any(), any());
     }
 
     @Test
@@ -340,53 +980,79 @@ class PostServiceImplTest {
         Long postId = 1L;
 
         User author = new User();
-        author.setRoles(Collections.singleton(Role.USER));
+        author.setId(1L);
 
-        Post postFromDb = new Post();
-        postFromDb.setAuthor(author);
+        Post postFromDb = new Post("Title", "Content", "image.png", author, LocalDateTime.now());
+        postFromDb.setId(postId);
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(postFromDb));
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(postFromDb)));
+        when(postRepository.softDeleteByIdAndAuthor(postId, author.getId(), false)).thenReturn(1);
 
-        postService.deletePost(postId);
+        postService.deletePost(postId, author.getId(), false);
 
-        verify(postRepository, times(1)).findById(postId);
-        verify(postRepository, times(1)).delete(postFromDb);
+        verify(postRepository, times(1)).softDeleteByIdAndAuthor(postId, author.getId(), false);
+        verify(postRepository, never()).delete(any(Post.class));
+        verify(recentPostsCache, times(1)).remove(argThat(post -> post.getAuthor().getId().equals(author.getId())));
+        verify(postSearchService, times(1)).removePost(argThat(post -> post.getId().equals(postId)));
+        verify(postCache, times(1)).evict(postId);
+        verify(feedCache, times(1)).evictSubscribersOf(author.getId());
+        verify(fileManagerUtil, never()).deleteFile(any());
+        verify(timelineService, never()).removePosts(any());
+        verify(rankedFeedService, never()).removePosts(any());
     }
 
     @Test
-    void deletePostWithInvalidIdAndThrowsPostNotFoundException() {
-        Long postId = -1L;
+    void deletePostOfAnotherAuthorByAdmin() {
+        Long postId = 1L;
 
         User author = new User();
-        author.setRoles(Collections.singleton(Role.USER));
+        author.setId(2L);
 
-        when(postRepository.findById(postId)).thenReturn(Optional.empty());
+        Post postFromDb = new Post("Title", "Content", null, author, LocalDateTime.now());
+        postFromDb.setId(postId);
 
-        PostNotFoundException exception = assertThrows(
-                PostNotFoundException.class,
-                () -> postService.deletePost(postId)
-        );
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(postFromDb)));
+        when(postRepository.softDeleteByIdAndAuthor(postId, 1L, true)).thenReturn(1);
 
-        assertEquals("Post not found", exception.getMessage());
+        postService.deletePost(postId, 1L, true);
 
-        verify(postRepository, times(1)).findById(postId);
-        verify(postRepository,  never()).delete(any(Post.class));
+        verify(postRepository, times(1)).softDeleteByIdAndAuthor(postId, 1L, true);
+        verify(feedCache, times(1)).evictSubscribersOf(author.getId());
     }
 
     @Test
-    void checkPostPresentAndGet() {
+    void deletePostOfAnotherAuthorAndThrowsAccessDeniedException() {
         Long postId = 1L;
 
         User author = new User();
-        Post post = new Post();
-        post.setId(postId);
-        post.setAuthor(author);
+        author.setId(2L);
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        Post postFromDb = new Post("Title", "Content", null, author, LocalDateTime.now());
+        postFromDb.setId(postId);
+
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.of(new PostDto(postFromDb)));
+        when(postRepository.softDeleteByIdAndAuthor(postId, 1L, false)).thenReturn(0);
+        when(postRepository.existsById(postId)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> postService.deletePost(postId, 1L, false));
+
+        verify(postSearchService, never()).removePost(any(Post.class));
+        verify(postCache, never()).evict(postId);
+    }
 
-        User result = postService.getAuthorFromPostByPostId(postId);
+    @Test
+    void deletePostWithInvalidIdAndThrowsPostNotFoundException() {
+        Long postId = -1L;
+
+        when(postRepository.findPostDtoById(postId)).thenReturn(Optional.empty());
+
+        PostNotFoundException exception = assertThrows(
+                PostNotFoundException.class,
+                () -> postService.deletePost(postId, 1L, false)
+        );
+
+        assertEquals("Post not found", exception.getMessage());
 
-        assertEquals(post.getAuthor(), result);
-        verify(postRepository, times(1)).findById(postId);
+        verify(postRepository, never()).softDeleteByIdAndAuthor(any(), any(), anyBoolean());
     }
-}
\ No newline at end of file
+}
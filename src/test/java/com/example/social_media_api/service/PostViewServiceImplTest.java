@@ -0,0 +1,130 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.cache.PostCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostViewServiceImplTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PostCache postCache;
+
+    @Captor
+    private ArgumentCaptor<Collection<Object[]>> rows;
+
+    private PostViewServiceImpl postViewService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        postViewService = new PostViewServiceImpl(jdbcTemplate, postCache, 500);
+    }
+
+    @Test
+    void recordViewCountsConcurrentViews() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8000; i++) {
+            executor.execute(() -> postViewService.recordView(1L));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(8000, postViewService.getPendingViews(1L));
+        assertEquals(0, postViewService.getPendingViews(2L));
+    }
+
+    @Test
+    void flushViewsWritesOneBatchSortedByPostId() {
+        postViewService.recordView(2L);
+        postViewService.recordView(1L);
+        postViewService.recordView(2L);
+
+        postViewService.flushViews();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq("UPDATE posts SET views = views + ? WHERE id = ?"),
+                rows.capture(), eq(500), anySetter());
+
+        List<Object[]> captured = new ArrayList<>(rows.getValue());
+        assertArrayEquals(new Object[] { 1L, 1L }, captured.get(0));
+        assertArrayEquals(new Object[] { 2L, 2L }, captured.get(1));
+        assertEquals(0, postViewService.getPendingViews(2L));
+        verify(postCache, times(1)).evict(1L);
+        verify(postCache, times(1)).evict(2L);
+    }
+
+    @Test
+    void flushViewsWithoutViewsDoesNotQueryDatabase() {
+        postViewService.recordView(1L);
+        postViewService.flushViews();
+        clearInvocations(jdbcTemplate);
+
+        postViewService.flushViews();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flushViewsDoesNotLoseViewsRecordedWhileCountersAreRemoved() throws Exception {
+        List<Long> flushed = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyRows(), anyInt(), anySetter()))
+                .thenAnswer(invocation -> {
+                    for (Object[] row : invocation.<Collection<Object[]>>getArgument(1)) {
+                        flushed.add((Long) row[0]);
+                    }
+                    return new int[0][];
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100000; i++) {
+            executor.execute(() -> postViewService.recordView(1L));
+        }
+        executor.shutdown();
+
+        while (!executor.isTerminated()) {
+            postViewService.flushViews();
+        }
+        postViewService.flushViews();
+
+        assertEquals(100000, flushed.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void flushViewsKeepsViewsWhenUpdateFails() {
+        postViewService.recordView(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyRows(), anyInt(), anySetter()))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> postViewService.flushViews());
+
+        assertEquals(1, postViewService.getPendingViews(1L));
+        verify(postCache, never()).evict(anyLong());
+    }
+
+    private static Collection<Object[]> anyRows() {
+        return any();
+    }
+
+    private static ParameterizedPreparedStatementSetter<Object[]> anySetter() {
+        return any();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.social_media_api.service;
 
+import com.example.social_media_api.cache.FeedCache;
 import com.example.social_media_api.domain.dto.UserDto;
 import com.example.social_media_api.domain.entity.Role;
 import com.example.social_media_api.domain.entity.User;
@@ -8,6 +9,7 @@ import com.example.social_media_api.repository.UserRepository;
 import com.example.social_media_api.repository.UserSubscriptionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -26,6 +28,18 @@ class ProfileServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TimelineService timelineService;
+
+    @Mock
+    private FeedCache feedCache;
+
+    @Mock
+    private FeedStreamService feedStreamService;
+
+    @Mock
+    private RankedFeedService rankedFeedService;
+
     @InjectMocks
     private ProfileServiceImpl profileService;
 
@@ -128,7 +142,13 @@ class ProfileServiceImplTest {
         assertFalse(channel.getFriends().contains(subscriber));
         assertFalse(subscriber.getFriends().contains(channel));
         verify(userSubscriptionRepository, times(1)).findByChannelAndSubscriber(subscriber, channel);
-        verify(userRepository, times(1)).saveAll(List.of(channel, subscriber));
+
+        InOrder order = inOrder(userRepository, timelineService, feedCache);
+        order.verify(userRepository).saveAll(List.of(channel, subscriber));
+        order.verify(timelineService).addSubscription(channel, subscriber);
+        order.verify(feedCache).evict(subscriber.getId());
+        verify(feedStreamService, times(1)).refreshSubscriptions(subscriber.getId());
+        verify(rankedFeedService, times(2)).invalidate(any());
     }
 
     @Test
@@ -178,6 +198,7 @@ class ProfileServiceImplTest {
         assertFalse(channel.getSubscriptions().contains(new UserSubscription(subscriber, channel)));
         assertFalse(channel.getFriends().contains(subscriber));
         assertFalse(subscriber.getFriends().contains(channel));
+        verify(timelineService, never()).removeSubscription(channel, subscriber);
         verify(userRepository, times(1)).saveAll(List.of(channel, subscriber));
     }
 
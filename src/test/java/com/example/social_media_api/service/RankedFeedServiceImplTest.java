@@ -0,0 +1,160 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.FeedRanking;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.repository.FeedRankingRepository;
+import com.example.social_media_api.repository.MessageRepository;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.repository.UserRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.*;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RankedFeedServiceImplTest {
+    @Mock
+    private FeedRankingRepository feedRankingRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Mock
+    private TimelineService timelineService;
+
+    private RankedFeedServiceImpl rankedFeedService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rankedFeedService = new RankedFeedServiceImpl(feedRankingRepository, postRepository, userRepository, messageRepository,
+                userSubscriptionRepository, timelineService, TransactionOperations.withoutTransaction(),
+                500, 500, 100, 86400, 2.0, 0.5, 30, 43200);
+    }
+
+    @Test
+    void getRankedTimelineFallsBackToChronologicalUntilRanked() {
+        Long subscriberId = 1L;
+        Pageable chronological = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createDate"));
+        Page<PostDto> timeline = new PageImpl<>(List.of(createPost(1L, 2L, 1)), chronological, 1);
+        Page<PostDto> ranked = new PageImpl<>(List.of(createPost(2L, 2L, 2)), PageRequest.of(0, 10), 1);
+
+        when(timelineService.getTimeline(subscriberId, chronological)).thenReturn(timeline);
+        when(timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 500)).thenReturn(List.of());
+        when(feedRankingRepository.findPostsBySubscriber(subscriberId, PageRequest.of(0, 10))).thenReturn(ranked);
+
+        assertEquals(timeline, rankedFeedService.getRankedTimeline(subscriberId, 0, 10));
+        verify(feedRankingRepository, never()).findPostsBySubscriber(any(), any());
+
+        rankedFeedService.rankPendingTimelines();
+
+        assertEquals(ranked, rankedFeedService.getRankedTimeline(subscriberId, 0, 10));
+        verify(feedRankingRepository, times(1)).deleteBySubscriberId(subscriberId);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void rankTimelinePutsFriendPostsAboveNewerPosts() {
+        Long subscriberId = 1L;
+        PostDto strangerPost = createPost(2L, 3L, 60);
+        PostDto friendPost = createPost(1L, 2L, 0);
+        Post strangerReference = new Post();
+        Post friendReference = new Post();
+
+        when(timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 500))
+                .thenReturn(List.of(strangerPost, friendPost));
+        when(postRepository.getReferenceById(2L)).thenReturn(strangerReference);
+        when(postRepository.getReferenceById(1L)).thenReturn(friendReference);
+        when(userRepository.findFriendIds(subscriberId)).thenReturn(List.of(2L));
+        when(messageRepository.countMessagesByUserSince(eq(subscriberId), any())).thenReturn(Collections.emptyList());
+
+        rankedFeedService.rankTimeline(subscriberId);
+
+        ArgumentCaptor<List<FeedRanking>> captor = ArgumentCaptor.forClass(List.class);
+        verify(feedRankingRepository, times(1)).deleteBySubscriberId(subscriberId);
+        verify(feedRankingRepository, times(1)).saveAll(captor.capture());
+
+        List<FeedRanking> rankings = captor.getValue();
+        assertEquals(2, rankings.size());
+        assertSame(strangerReference, rankings.get(0).getPost());
+        assertSame(friendReference, rankings.get(1).getPost());
+        assertTrue(rankings.get(1).getScore() > rankings.get(0).getScore());
+    }
+
+    @Test
+    void getScoreGrowsWithMessagesAndDoesNotDependOnCurrentTime() {
+        PostDto post = createPost(1L, 2L, 0);
+
+        double withoutMessages = rankedFeedService.getScore(post, Set.of(), Map.of());
+        double withMessages = rankedFeedService.getScore(post, Set.of(), Map.of(2L, 10L));
+
+        assertTrue(withMessages > withoutMessages);
+        assertEquals(withoutMessages, rankedFeedService.getScore(post, Set.of(), Map.of()));
+    }
+
+    @Test
+    void invalidateSubscribersOfMarksOnlyRankedUsers() {
+        Long rankedUserId = 1L;
+        Long otherUserId = 2L;
+        Long channelId = 3L;
+
+        when(timelineService.getTimeline(eq(rankedUserId), any(Pageable.class))).thenReturn(Page.empty());
+        when(timelineService.getTimeline(rankedUserId, null, Sort.Direction.DESC, 500)).thenReturn(List.of());
+        when(userSubscriptionRepository.findSubscriberIdsByChannelId(channelId))
+                .thenReturn(List.of(rankedUserId, otherUserId));
+
+        rankedFeedService.getRankedTimeline(rankedUserId, 0, 10);
+        rankedFeedService.rankPendingTimelines();
+
+        rankedFeedService.invalidateSubscribersOf(channelId);
+        rankedFeedService.rankPendingTimelines();
+
+        verify(timelineService, times(2)).getTimeline(rankedUserId, null, Sort.Direction.DESC, 500);
+        verify(timelineService, never()).getTimeline(eq(otherUserId), any(), any(), anyInt());
+    }
+
+    @Test
+    void invalidateSkipsUsersWithoutRankedFeed() {
+        rankedFeedService.invalidate(1L);
+        rankedFeedService.rankPendingTimelines();
+
+        verify(timelineService, never()).getTimeline(any(), any(), any(), anyInt());
+        verify(feedRankingRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void removePostsDeletesRankings() {
+        List<Long> postIds = List.of(1L, 2L);
+
+        rankedFeedService.removePosts(postIds);
+
+        verify(feedRankingRepository, times(1)).deleteByPostIds(postIds);
+    }
+
+    private PostDto createPost(Long id, Long authorId, int minutes) {
+        return new PostDto(id, "title", "content", null, authorId, "author",
+                LocalDateTime.of(2023, 6, 1, 12, 0).plusMinutes(minutes), 0, 0);
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.social_media_api.service;
+
+import com.example.social_media_api.cache.PostCache;
+import com.example.social_media_api.cache.RecentPostsCache;
+import com.example.social_media_api.domain.dto.PostDto;
+import com.example.social_media_api.domain.entity.Post;
+import com.example.social_media_api.domain.entity.User;
+import com.example.social_media_api.repository.FeedEntryRepository;
+import com.example.social_media_api.repository.FeedPullAuthorRepository;
+import com.example.social_media_api.repository.PostRepository;
+import com.example.social_media_api.repository.UserSubscriptionRepository;
+import com.example.social_media_api.utils.FeedCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.*;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimelineServiceImplTest {
+    private static final long FOLLOWER_THRESHOLD = 100;
+
+    @Mock
+    private FeedEntryRepository feedEntryRepository;
+
+    @Mock
+    private FeedPullAuthorRepository feedPullAuthorRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserSubscriptionRepository userSubscriptionRepository;
+
+    @Mock
+    private RecentPostsCache recentPostsCache;
+
+    private TimelineServiceImpl timelineService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        timelineService = new TimelineServiceImpl(feedEntryRepository, feedPullAuthorRepository, postRepository,
+                userSubscriptionRepository, recentPostsCache, new PostCache(100, 60), FOLLOWER_THRESHOLD, 100, 60, 100, 60, 50, 20);
+    }
+
+    @Test
+    void getTimelineWithoutPullAuthors() {
+        Long subscriberId = 1L;
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createDate"));
+        Page<PostDto> expected = new PageImpl<>(List.of(createPostDto(1L, 1)), pageable, 1);
+
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(Collections.emptyList());
+        when(feedEntryRepository.findPostsBySubscriber(subscriberId, pageable)).thenReturn(expected);
+
+        Page<PostDto> result = timelineService.getTimeline(subscriberId, pageable);
+
+        assertEquals(expected, result);
+        verify(postRepository, never()).findByAuthorIds(any(), any(Pageable.class));
+    }
+
+    @Test
+    void getTimelineMergesPushedAndPulledPosts() {
+        Long subscriberId = 1L;
+        List<Long> pullAuthorIds = List.of(7L);
+        Pageable pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "createDate"));
+
+        PostDto pushedNewest = createPostDto(5L, 5);
+        PostDto pushedOld = createPostDto(2L, 2);
+        PostDto pulledNew = createPostDto(4L, 4);
+        PostDto pulledOld = createPostDto(3L, 3);
+        PostDto pulledOldest = createPostDto(1L, 1);
+
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(pullAuthorIds);
+        when(feedEntryRepository.findTimelineHead(eq(subscriberId), any(Pageable.class)))
+                .thenReturn(List.of(pushedNewest, pushedOld));
+        when(postRepository.findByAuthorIds(eq(pullAuthorIds), any(Pageable.class)))
+                .thenReturn(List.of(pulledNew, pulledOld, pulledOldest));
+        when(feedEntryRepository.countBySubscriberIdExcludingAuthors(subscriberId, pullAuthorIds)).thenReturn(2L);
+        when(postRepository.countByAuthorIds(pullAuthorIds)).thenReturn(3L);
+
+        Page<PostDto> result = timelineService.getTimeline(subscriberId, pageable);
+
+        assertEquals(List.of(pulledOld, pushedOld), result.getContent());
+        assertEquals(5, result.getTotalElements());
+        verify(feedEntryRepository, never()).findPostsBySubscriber(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getTimelineWithPullAuthorsRejectsTooDeepPages() {
+        Long subscriberId = 1L;
+        Pageable pageable = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "createDate"));
+
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(List.of(7L));
+
+        assertThrows(IllegalArgumentException.class, () -> timelineService.getTimeline(subscriberId, pageable));
+        assertThrows(IllegalArgumentException.class, () -> timelineService.getTimelineSlice(subscriberId, pageable));
+
+        verify(feedEntryRepository, never()).findTimelineHead(anyLong(), any(Pageable.class));
+        verify(postRepository, never()).findByAuthorIds(any(), any(Pageable.class));
+    }
+
+    @Test
+    void getTimelineSliceMergesPushedAndPulledPosts() {
+        Long subscriberId = 1L;
+        List<Long> pullAuthorIds = List.of(7L);
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "createDate"));
+
+        PostDto pushed = createPostDto(1L, 1);
+        PostDto pulledFirst = createPostDto(2L, 2);
+        PostDto pulledSecond = createPostDto(3L, 3);
+
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(pullAuthorIds);
+        when(feedEntryRepository.findTimelineHead(eq(subscriberId), any(Pageable.class))).thenReturn(List.of(pushed));
+        when(postRepository.findByAuthorIds(eq(pullAuthorIds), any(Pageable.class)))
+                .thenReturn(List.of(pulledFirst, pulledSecond));
+
+        Slice<PostDto> result = timelineService.getTimelineSlice(subscriberId, pageable);
+
+        assertEquals(List.of(pushed, pulledFirst), result.getContent());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    void getTimelineByCursorMergesPushedAndPulledPosts() {
+        Long subscriberId = 1L;
+        List<Long> pullAuthorIds = List.of(7L);
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2023, 6, 1, 12, 10), 10L);
+
+        PostDto pushed = createPostDto(3L, 3);
+        PostDto pulled = createPostDto(4L, 4);
+
+        when(feedEntryRepository.findTimelineBefore(eq(subscriberId), eq(cursor.getCreateDate()), eq(cursor.getPostId()),
+                any(Pageable.class))).thenReturn(List.of(pushed));
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(pullAuthorIds);
+        when(postRepository.findByAuthorIdsBefore(eq(pullAuthorIds), eq(cursor.getCreateDate()), eq(cursor.getPostId()),
+                any(Pageable.class))).thenReturn(List.of(pulled));
+
+        List<PostDto> result = timelineService.getTimeline(subscriberId, cursor, Sort.Direction.DESC, 10);
+
+        assertEquals(List.of(pulled, pushed), result);
+    }
+
+    @Test
+    void getTimelineByCursorSkipsPostsOfAuthorStillBeingConvertedToPull() {
+        Long subscriberId = 1L;
+        List<Long> pullAuthorIds = List.of(7L);
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2023, 6, 1, 12, 10), 10L);
+
+        PostDto newest = createPostDto(4L, 4);
+        PostDto oldest = createPostDto(3L, 3);
+
+        when(feedEntryRepository.findTimelineBefore(eq(subscriberId), eq(cursor.getCreateDate()), eq(cursor.getPostId()),
+                any(Pageable.class))).thenReturn(List.of(newest, oldest));
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(pullAuthorIds);
+        when(postRepository.findByAuthorIdsBefore(eq(pullAuthorIds), eq(cursor.getCreateDate()), eq(cursor.getPostId()),
+                any(Pageable.class))).thenReturn(List.of(createPostDto(4L, 4)));
+
+        List<PostDto> result = timelineService.getTimeline(subscriberId, cursor, Sort.Direction.DESC, 10);
+
+        assertEquals(List.of(4L, 3L), result.stream().map(PostDto::getId).toList());
+    }
+
+    @Test
+    void getTimelineByCursorFromRecentPostsCache() {
+        Long subscriberId = 1L;
+        List<Long> channelIds = List.of(7L, 8L);
+
+        PostDto newest = createPostDto(2L, 2);
+        PostDto oldest = createPostDto(1L, 1);
+
+        when(recentPostsCache.isEnabled()).thenReturn(true);
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(subscriberId)).thenReturn(channelIds);
+        when(recentPostsCache.getLatestPostIds(channelIds, null, 2)).thenReturn(List.of(2L, 1L));
+        when(postRepository.findPostDtosByIds(List.of(2L, 1L))).thenReturn(List.of(oldest, newest));
+
+        List<PostDto> result = timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 2);
+
+        assertEquals(List.of(newest, oldest), result);
+        verify(feedEntryRepository, never()).findTimelineHead(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getTimelineFromRecentPostsCacheRepeatedlyDoesNotQueryDatabase() {
+        Long subscriberId = 1L;
+        List<Long> channelIds = List.of(7L);
+
+        when(recentPostsCache.isEnabled()).thenReturn(true);
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(subscriberId)).thenReturn(channelIds);
+        when(recentPostsCache.getLatestPostIds(channelIds, null, 2)).thenReturn(List.of(2L, 1L));
+        when(postRepository.findPostDtosByIds(List.of(2L, 1L)))
+                .thenReturn(List.of(createPostDto(1L, 1), createPostDto(2L, 2)));
+
+        timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 2);
+        List<PostDto> result = timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 2);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(PostDto::getId).toList());
+        verify(userSubscriptionRepository, times(1)).findChannelIdsBySubscriberId(subscriberId);
+        verify(postRepository, times(1)).findPostDtosByIds(any());
+    }
+
+    @Test
+    void getTimelineByCursorFallsBackToDatabaseWhenCacheCannotAnswer() {
+        Long subscriberId = 1L;
+        List<Long> channelIds = List.of(7L);
+        PostDto post = createPostDto(1L, 1);
+
+        when(recentPostsCache.isEnabled()).thenReturn(true);
+        when(userSubscriptionRepository.findChannelIdsBySubscriberId(subscriberId)).thenReturn(channelIds);
+        when(recentPostsCache.getLatestPostIds(channelIds, null, 2)).thenReturn(null);
+        when(feedEntryRepository.findTimelineHead(eq(subscriberId), any(Pageable.class))).thenReturn(List.of(post));
+        when(feedPullAuthorRepository.findFollowedPullAuthorIds(subscriberId)).thenReturn(Collections.emptyList());
+
+        List<PostDto> result = timelineService.getTimeline(subscriberId, null, Sort.Direction.DESC, 2);
+
+        assertEquals(List.of(post), result);
+        verify(postRepository, never()).findPostDtosByIds(any());
+    }
+
+    @Test
+    void addPostFansOutBelowFollowerThreshold() {
+        Post post = createPost(1L, 1);
+        Long authorId = post.getAuthor().getId();
+
+        when(feedPullAuthorRepository.existsById(authorId)).thenReturn(false);
+        when(userSubscriptionRepository.countSubscribersByChannelId(authorId)).thenReturn(FOLLOWER_THRESHOLD);
+
+        timelineService.addPost(post);
+
+        verify(feedEntryRepository, times(1)).fanOutPost(post.getId(), authorId, post.getCreateDate());
+        verify(feedPullAuthorRepository, never()).markPullAuthor(anyLong(), any());
+    }
+
+    @Test
+    void addPostSwitchesAuthorToPullModeAboveFollowerThreshold() {
+        Post post = createPost(1L, 1);
+        Long authorId = post.getAuthor().getId();
+
+        when(feedPullAuthorRepository.existsById(authorId)).thenReturn(false);
+        when(userSubscriptionRepository.countSubscribersByChannelId(authorId)).thenReturn(FOLLOWER_THRESHOLD + 1);
+
+        timelineService.addPost(post);
+
+        verify(feedPullAuthorRepository, times(1)).markPullAuthor(eq(authorId), any());
+        verify(feedEntryRepository, never()).deleteByAuthorId(anyLong(), anyInt());
+        verify(feedEntryRepository, never()).fanOutPost(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void addPostReusesCachedFollowerCount() {
+        Post first = createPost(1L, 1);
+        Post second = createPost(2L, 2);
+        Long authorId = first.getAuthor().getId();
+
+        when(feedPullAuthorRepository.existsById(authorId)).thenReturn(false);
+        when(userSubscriptionRepository.countSubscribersByChannelId(authorId)).thenReturn(FOLLOWER_THRESHOLD);
+
+        timelineService.addPost(first);
+        timelineService.addPost(second);
+
+        verify(userSubscriptionRepository, times(1)).countSubscribersByChannelId(authorId);
+        verify(feedEntryRepository, times(1)).fanOutPost(second.getId(), authorId, second.getCreateDate());
+    }
+
+    @Test
+    void addPostsChecksAuthorOnceAndFansOutEachPost() {
+        Post first = createPost(1L, 1);
+        Post second = createPost(2L, 2);
+        Long authorId = first.getAuthor().getId();
+
+        when(feedPullAuthorRepository.existsById(authorId)).thenReturn(false);
+        when(userSubscriptionRepository.countSubscribersByChannelId(authorId)).thenReturn(FOLLOWER_THRESHOLD);
+
+        timelineService.addPosts(List.of(first, second));
+
+        verify(userSubscriptionRepository, times(1)).countSubscribersByChannelId(authorId);
+        verify(feedEntryRepository, times(1)).fanOutPost(first.getId(), authorId, first.getCreateDate());
+        verify(feedEntryRepository, times(1)).fanOutPost(second.getId(), authorId, second.getCreateDate());
+    }
+
+    @Test
+    void addPostOfPullAuthorDoesNotFanOut() {
+        Post post = createPost(1L, 1);
+        Long authorId = post.getAuthor().getId();
+
+        when(feedPullAuthorRepository.existsById(authorId)).thenReturn(true);
+
+        timelineService.addPost(post);
+
+        verify(userSubscriptionRepository, never()).countSubscribersByChannelId(anyLong());
+        verify(feedEntryRepository, never()).fanOutPost(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void addSubscriptionBackfillsLatestChannelPosts() {
+        User channel = new User();
+        channel.setId(7L);
+        User subscriber = new User();
+        subscriber.setId(1L);
+
+        timelineService.addSubscription(channel, subscriber);
+
+        verify(feedEntryRepository, times(1)).backfillChannel(subscriber.getId(), channel.getId(), 50);
+    }
+
+    @Test
+    void addSubscriptionToPullAuthorDoesNotBackfill() {
+        User channel = new User();
+        channel.setId(7L);
+        User subscriber = new User();
+        subscriber.setId(1L);
+
+        when(feedPullAuthorRepository.existsById(channel.getId())).thenReturn(true);
+
+        timelineService.addSubscription(channel, subscriber);
+
+        verify(feedEntryRepository, never()).backfillChannel(anyLong(), anyLong(), anyInt());
+    }
+
+    private PostDto createPostDto(Long id, int minute) {
+        return new PostDto(createPost(id, minute));
+    }
+
+    private Post createPost(Long id, int minute) {
+        User author = new User();
+        author.setId(7L);
+
+        Post post = new Post();
+        post.setId(id);
+        post.setAuthor(author);
+        post.setCreateDate(LocalDateTime.of(2023, 6, 1, 12, minute));
+
+        return post;
+    }
+}
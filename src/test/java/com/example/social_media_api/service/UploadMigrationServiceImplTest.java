@@ -0,0 +1,59 @@
+package com.example.social_media_api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadMigrationServiceImplTest {
+    @TempDir
+    Path uploadPath;
+
+    private UploadMigrationServiceImpl uploadMigrationService;
+
+    @BeforeEach
+    void setUp() {
+        uploadMigrationService = new UploadMigrationServiceImpl(uploadPath.toString(), 2);
+    }
+
+    @Test
+    void migrateFilesMovesOneBatchPerRun() throws IOException {
+        Files.write(uploadPath.resolve("aaaa1.png"), new byte[] { 1 });
+        Files.write(uploadPath.resolve("aaaa1_thumb.png"), new byte[] { 2 });
+        Files.write(uploadPath.resolve("bbbb2.jpg"), new byte[] { 3 });
+
+        assertEquals(2, uploadMigrationService.migrateFiles());
+        assertEquals(1, uploadMigrationService.migrateFiles());
+        assertEquals(0, uploadMigrationService.migrateFiles());
+
+        assertArrayEquals(new byte[] { 1 }, Files.readAllBytes(uploadPath.resolve("aa/aa/aaaa1.png")));
+        assertArrayEquals(new byte[] { 2 }, Files.readAllBytes(uploadPath.resolve("aa/aa/aaaa1_thumb.png")));
+        assertArrayEquals(new byte[] { 3 }, Files.readAllBytes(uploadPath.resolve("bb/bb/bbbb2.jpg")));
+    }
+
+    @Test
+    void migrateFilesSkipsTemporaryFilesAndShortNames() throws IOException {
+        Files.write(uploadPath.resolve("upload123.tmp"), new byte[] { 1 });
+        Files.write(uploadPath.resolve("a.png"), new byte[] { 1 });
+
+        assertEquals(0, uploadMigrationService.migrateFiles());
+
+        assertTrue(Files.exists(uploadPath.resolve("upload123.tmp")));
+        assertTrue(Files.exists(uploadPath.resolve("a.png")));
+    }
+
+    @Test
+    void migrateFilesStopsAfterEmptyRun() throws IOException {
+        assertEquals(0, uploadMigrationService.migrateFiles());
+
+        Files.write(uploadPath.resolve("aaaa1.png"), new byte[] { 1 });
+
+        assertEquals(0, uploadMigrationService.migrateFiles());
+        assertTrue(Files.exists(uploadPath.resolve("aaaa1.png")));
+    }
+}
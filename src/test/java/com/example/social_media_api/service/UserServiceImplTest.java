@@ -119,6 +119,23 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).findById(userId);
     }
 
+    @Test
+    void checkUserExistsDoesNotLoadUser() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertDoesNotThrow(() -> userService.checkUserExists(1L));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void checkUserExistsNonExistingUserAndThrowsUserNotFoundException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> userService.checkUserExists(1L));
+
+        assertEquals("User not found", exception.getMessage());
+    }
+
     @Test
     void updateUserAndReturnsSameUpdatedUser() {
         User user = new User(
@@ -0,0 +1,184 @@
+package com.example.social_media_api.utils;
+
+import com.example.social_media_api.domain.entity.ImageBlob;
+import com.example.social_media_api.repository.ImageBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileManagerUtilTest {
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3 };
+    private static final String PNG_NAME = "7f47b756761a46e6d4a4d96f0d8a4448f8449235009d1f3ad1493f5c773c19e8.png";
+
+    @TempDir
+    Path uploadPath;
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    private FileManagerUtil fileManagerUtil;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        fileManagerUtil = new FileManagerUtil(uploadPath.toString(), 100, imageBlobRepository,
+                TransactionOperations.withoutTransaction());
+    }
+
+    @Test
+    void saveFileAndGetLinkStoresSameContentOnce() throws IOException {
+        String first = fileManagerUtil.saveFileAndGetLink(new MockMultipartFile("image", "first.png", "image/png", PNG));
+        String second = fileManagerUtil.saveFileAndGetLink(new MockMultipartFile("image", "SECOND.PNG", "image/png", PNG));
+
+        assertEquals(PNG_NAME, first);
+        assertEquals(first, second);
+        assertArrayEquals(PNG, Files.readAllBytes(uploadPath.resolve("7f/47/" + first)));
+        assertEquals(1, countFiles());
+        verify(imageBlobRepository, times(2)).addReference(first);
+    }
+
+    @Test
+    void saveFileAndGetLinkStoresDifferentContentSeparately() throws IOException {
+        byte[] firstContent = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1 };
+        byte[] secondContent = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 2 };
+
+        String first = fileManagerUtil.saveFileAndGetLink(new MockMultipartFile("image", "a.jpg", "image/jpeg", firstContent));
+        String second = fileManagerUtil.saveFileAndGetLink(new MockMultipartFile("image", "a.jpg", "image/jpeg", secondContent));
+
+        assertNotEquals(first, second);
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void saveFileAndGetLinkWithInvalidFormatAndThrowsIllegalArgumentException() throws IOException {
+        MockMultipartFile image = new MockMultipartFile("image", "test.gif", "image/gif", new byte[] { 1 });
+
+        assertThrows(IllegalArgumentException.class, () -> fileManagerUtil.saveFileAndGetLink(image));
+
+        assertEquals(0, countFiles());
+        verify(imageBlobRepository, never()).addReference(any());
+    }
+
+    @Test
+    void saveFileAndGetLinkWithContentNotMatchingExtensionAndThrowsIllegalArgumentException() throws IOException {
+        MockMultipartFile jpegNamedPng = new MockMultipartFile("image", "image.png", "image/png",
+                new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1 });
+        MockMultipartFile textNamedJpeg = new MockMultipartFile("image", "image.jpeg", "image/jpeg", "<svg/>".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> fileManagerUtil.saveFileAndGetLink(jpegNamedPng));
+        assertThrows(IllegalArgumentException.class, () -> fileManagerUtil.saveFileAndGetLink(textNamedJpeg));
+
+        assertEquals(0, countFiles());
+        verify(imageBlobRepository, never()).addReference(any());
+    }
+
+    @Test
+    void saveFileAndGetLinkWithTooLargeFileAndThrowsMaxUploadSizeExceededException() throws IOException {
+        byte[] content = Arrays.copyOf(PNG, 101);
+        MockMultipartFile image = new MockMultipartFile("image", "image.png", "image/png", content);
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> fileManagerUtil.saveFileAndGetLink(image));
+
+        assertEquals(0, countFiles());
+        verify(imageBlobRepository, never()).addReference(any());
+    }
+
+    @Test
+    void saveFileAndGetLinkStopsReadingWhenFileExceedsMaxSize() throws IOException {
+        MultipartFile image = mock(MultipartFile.class);
+        when(image.getOriginalFilename()).thenReturn("image.png");
+        when(image.getInputStream()).thenReturn(new ByteArrayInputStream(Arrays.copyOf(PNG, 1000)));
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> fileManagerUtil.saveFileAndGetLink(image));
+
+        assertEquals(0, countFiles());
+        verify(imageBlobRepository, never()).addReference(any());
+    }
+
+    @Test
+    void deleteFileKeepsFileWhileItIsReferenced() throws IOException {
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+        when(imageBlobRepository.findByNameForUpdate("image.png")).thenReturn(Optional.of(new ImageBlob("image.png", 1)));
+
+        fileManagerUtil.deleteFile("image.png");
+
+        verify(imageBlobRepository, times(1)).removeReference("image.png");
+        verify(imageBlobRepository, never()).delete(any());
+        assertTrue(Files.exists(uploadPath.resolve("image.png")));
+    }
+
+    @Test
+    void deleteFileRemovesFileAndVariantsWithLastReference() throws IOException {
+        ImageBlob blob = new ImageBlob("image.png", 0);
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+        Files.write(uploadPath.resolve("image_thumb.png"), new byte[] { 1 });
+        when(imageBlobRepository.findByNameForUpdate("image.png")).thenReturn(Optional.of(blob));
+
+        fileManagerUtil.deleteFile("image.png");
+
+        verify(imageBlobRepository, times(1)).delete(blob);
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void saveFileAndGetLinkReusesFileNotYetMovedToShardDirectory() throws IOException {
+        Files.write(uploadPath.resolve(PNG_NAME), PNG);
+
+        fileManagerUtil.saveFileAndGetLink(new MockMultipartFile("image", "image.png", "image/png", PNG));
+
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    void deleteFileRemovesFileFromRootAndShardDirectory() throws IOException {
+        Files.createDirectories(uploadPath.resolve("im/ag"));
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+        Files.write(uploadPath.resolve("im/ag/image_feed.png"), new byte[] { 1 });
+        when(imageBlobRepository.findByNameForUpdate("image.png")).thenReturn(Optional.empty());
+
+        fileManagerUtil.deleteFile("image.png");
+
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void deleteFileRemovesFileWithoutBlob() throws IOException {
+        Files.write(uploadPath.resolve("image.png"), new byte[] { 1 });
+        when(imageBlobRepository.findByNameForUpdate("image.png")).thenReturn(Optional.empty());
+
+        fileManagerUtil.deleteFile("image.png");
+
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void deleteFileWithoutFileDoesNothing() {
+        fileManagerUtil.deleteFile(null);
+
+        verifyNoInteractions(imageBlobRepository);
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadPath)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.social_media_api.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadLayoutTest {
+    @TempDir
+    Path uploadPath;
+
+    @Test
+    void getRelativePathSpreadsFilesByNamePrefix() {
+        assertEquals("ab/cd/abcdef.png", UploadLayout.getRelativePath("abcdef.png"));
+        assertEquals("ab/cd/abcdef_thumb.png", UploadLayout.getRelativePath("abcdef_thumb.png"));
+        assertEquals(uploadPath.resolve("ab/cd/abcdef.png"), UploadLayout.getPath(uploadPath, "abcdef.png"));
+    }
+
+    @Test
+    void getRelativePathKeepsShortAndNestedNames() {
+        assertEquals("abc.png", UploadLayout.getRelativePath("abc.png"));
+        assertEquals("a.bcdef.png", UploadLayout.getRelativePath("a.bcdef.png"));
+        assertEquals("ab/cd/abcdef.png", UploadLayout.getRelativePath("ab/cd/abcdef.png"));
+        assertEquals("../../etc", UploadLayout.getRelativePath("../../etc"));
+    }
+
+    @Test
+    void findPrefersFileNotYetMovedToShardDirectory() throws IOException {
+        assertEquals(uploadPath.resolve("ab/cd/abcdef.png"), UploadLayout.find(uploadPath, "abcdef.png"));
+        assertFalse(UploadLayout.exists(uploadPath, "abcdef.png"));
+
+        Files.write(uploadPath.resolve("abcdef.png"), new byte[] { 1 });
+
+        assertEquals(uploadPath.resolve("abcdef.png"), UploadLayout.find(uploadPath, "abcdef.png"));
+        assertTrue(UploadLayout.exists(uploadPath, "abcdef.png"));
+    }
+}